@@ -36,4 +36,29 @@ public class AlistConfig {
      * 目标文件路径，表示文件操作完成后存放的路径。
      */
     private String targetPath;
-}
\ No newline at end of file
+
+    /**
+     * 是否通过Alist上传整理的文件。开启后目标路径是Alist中的路径，文件上传到Alist管理的存储，而不是复制到本地目录。
+     */
+    private boolean upload = false;
+
+    /**
+     * 同时上传的文件数量。
+     */
+    private int uploadThreads = 2;
+
+    /**
+     * 每个上传流的读取缓冲区大小（KB）。
+     */
+    private int uploadBuffer = 1024;
+
+    /**
+     * 令牌的缓存时间（小时），应小于Alist中配置的令牌有效期。
+     */
+    private int tokenTtl = 24;
+
+    /**
+     * 读取响应的超时时间（秒）。Alist可能在接收完整个文件后才转存到后端存储并返回响应，因此需要较长的超时时间。
+     */
+    private int timeout = 600;
+}
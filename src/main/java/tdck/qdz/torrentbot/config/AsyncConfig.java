@@ -0,0 +1,133 @@
+package tdck.qdz.torrentbot.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.aop.interceptor.AsyncUncaughtExceptionHandler;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.AsyncConfigurer;
+import org.springframework.scheduling.annotation.EnableAsync;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import tdck.qdz.torrentbot.service.ExecutorMetrics;
+
+/**
+ * 配置类，用于启用异步事件处理并创建各类事件的线程池。
+ * 事件监听器通过 {@code @Async("线程池名称")} 在独立线程池中执行，不再阻塞Telegram的长轮询线程，
+ * 某一类事件处理缓慢（例如大文件复制）也不会影响其他事件。
+ * 事件监听器抛出的异常由统一的异常处理器记录日志，并计入所在线程池的失败数。
+ */
+@Slf4j
+@Configuration
+@EnableAsync
+@RequiredArgsConstructor
+public class AsyncConfig implements AsyncConfigurer {
+    /**
+     * 添加种子事件线程池的名称。
+     */
+    public static final String ADD_TORRENT_EXECUTOR = "addTorrentExecutor";
+
+    /**
+     * 列出任务事件线程池的名称。
+     */
+    public static final String LIST_TASKS_EXECUTOR = "listTasksExecutor";
+
+    /**
+     * 下载完成事件线程池的名称。
+     */
+    public static final String DOWNLOAD_COMPLETE_EXECUTOR = "downloadCompleteExecutor";
+
+    /**
+     * 整理任务线程池的名称。
+     */
+    public static final String ORGANIZE_EXECUTOR = "organizeExecutor";
+
+    /**
+     * 种子文件下载线程池的名称。
+     */
+    public static final String TORRENT_DOWNLOAD_EXECUTOR = "torrentDownloadExecutor";
+
+    /**
+     * qBittorrent异步请求线程池的名称。
+     */
+    public static final String QB_ASYNC_EXECUTOR = "qbAsyncExecutor";
+
+    /**
+     * 注入的事件线程池配置对象。
+     */
+    private final EventExecutorConfig eventExecutorConfig;
+
+    /**
+     * 注入的文件整理配置对象。
+     */
+    private final OrganizeConfig organizeConfig;
+
+    /**
+     * 注入的线程池统计服务。
+     */
+    private final ExecutorMetrics executorMetrics;
+
+    @Bean(ADD_TORRENT_EXECUTOR)
+    public ThreadPoolTaskExecutor addTorrentExecutor() {
+        return createExecutor("add-torrent", eventExecutorConfig.getAddTorrent());
+    }
+
+    @Bean(LIST_TASKS_EXECUTOR)
+    public ThreadPoolTaskExecutor listTasksExecutor() {
+        return createExecutor("list-tasks", eventExecutorConfig.getListTasks());
+    }
+
+    @Bean(DOWNLOAD_COMPLETE_EXECUTOR)
+    public ThreadPoolTaskExecutor downloadCompleteExecutor() {
+        return createExecutor("download-complete", eventExecutorConfig.getDownloadComplete());
+    }
+
+    @Bean(TORRENT_DOWNLOAD_EXECUTOR)
+    public ThreadPoolTaskExecutor torrentDownloadExecutor() {
+        return createExecutor("torrent-download", eventExecutorConfig.getTorrentDownload());
+    }
+
+    @Bean(QB_ASYNC_EXECUTOR)
+    public ThreadPoolTaskExecutor qbAsyncExecutor() {
+        return createExecutor("qb-async", eventExecutorConfig.getQbAsync());
+    }
+
+    @Bean(ORGANIZE_EXECUTOR)
+    public ThreadPoolTaskExecutor organizeExecutor() {
+        // 整理任务由持久化的复制任务队列调度，线程池中只会有已占用设备配额的任务，不需要额外的排队空间
+        int threads = organizeConfig.getJobThreads();
+        return createExecutor("organize", new EventExecutorConfig.Pool(threads, threads, threads));
+    }
+
+    /**
+     * 处理@Async方法抛出的异常：记录日志，并计入执行该方法的线程池的失败数。
+     *
+     * @return 异常处理器
+     */
+    @Override
+    public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
+        return (ex, method, params) -> {
+            log.error("异步事件处理失败: {}.{}", method.getDeclaringClass().getSimpleName(), method.getName(), ex);
+            executorMetrics.recordFailure(Thread.currentThread().getName());
+        };
+    }
+
+    /**
+     * 创建有界线程池，并注册到线程池统计服务。
+     *
+     * @param name 线程池名称，同时作为线程名前缀
+     * @param pool 线程池配置
+     * @return 线程池（由Spring负责初始化和关闭）
+     */
+    private ThreadPoolTaskExecutor createExecutor(String name, EventExecutorConfig.Pool pool) {
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix(name + "-");
+        executor.setCorePoolSize(pool.getCoreSize());
+        executor.setMaxPoolSize(Math.max(pool.getCoreSize(), pool.getMaxSize()));
+        executor.setQueueCapacity(pool.getQueueCapacity());
+        // 关闭时等待已提交的事件处理完成
+        executor.setWaitForTasksToCompleteOnShutdown(true);
+        executor.setAwaitTerminationSeconds(30);
+        executorMetrics.register(name, executor);
+        return executor;
+    }
+}
@@ -0,0 +1,70 @@
+package tdck.qdz.torrentbot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 配置类，用于存储事件处理线程池的配置信息。
+ * 每种事件使用独立的有界线程池，队列满时拒绝新的事件，由发布方处理（例如回复用户系统繁忙），
+ * 不会在Telegram的长轮询线程或后台任务线程中执行。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "event.options")
+public class EventExecutorConfig {
+    /**
+     * 添加种子事件的线程池配置。
+     */
+    private Pool addTorrent = new Pool(2, 4, 100);
+
+    /**
+     * 列出任务事件的线程池配置。
+     */
+    private Pool listTasks = new Pool(1, 2, 20);
+
+    /**
+     * 下载完成事件（文件复制）的线程池配置。
+     */
+    private Pool downloadComplete = new Pool(1, 2, 50);
+
+    /**
+     * 下载用户发送的种子文件的线程池配置。
+     */
+    private Pool torrentDownload = new Pool(2, 4, 50);
+
+    /**
+     * qBittorrent异步请求（{@code QbAsyncService}）的线程池配置。
+     */
+    private Pool qbAsync = new Pool(2, 8, 100);
+
+    /**
+     * 单个线程池的配置。
+     */
+    @Data
+    public static class Pool {
+        /**
+         * 核心线程数。
+         */
+        private int coreSize;
+
+        /**
+         * 最大线程数，队列满后才会创建核心线程以外的线程。
+         */
+        private int maxSize;
+
+        /**
+         * 等待队列的容量。
+         */
+        private int queueCapacity;
+
+        public Pool() {
+        }
+
+        public Pool(int coreSize, int maxSize, int queueCapacity) {
+            this.coreSize = coreSize;
+            this.maxSize = maxSize;
+            this.queueCapacity = queueCapacity;
+        }
+    }
+}
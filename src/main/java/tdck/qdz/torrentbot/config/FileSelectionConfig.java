@@ -0,0 +1,49 @@
+package tdck.qdz.torrentbot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 配置类，用于存储文件选择规则。
+ * 同一套规则既用于添加种子后跳过不需要的文件（在qBittorrent中设置为不下载），也用于整理时选择要复制的文件。
+ * 文件需要同时满足最小大小、扩展名和排除规则才会被保留。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "selection.options")
+public class FileSelectionConfig {
+    /**
+     * 是否在添加种子后将不需要的文件设置为不下载，默认关闭。
+     * 开启后不满足规则的文件（默认规则下即小于1GB的文件，包括字幕、单集和音乐）不会被下载，升级后需要按需调整规则再开启。
+     */
+    private boolean enabled = false;
+
+    /**
+     * 保留文件的最小大小（MB），默认与整理时只复制大于1GB的文件的原有行为一致。
+     */
+    private int minSize = 1024;
+
+    /**
+     * 保留文件的扩展名（不含点，不区分大小写），为空表示不限制扩展名。
+     */
+    private List<String> extensions = new ArrayList<>();
+
+    /**
+     * 排除文件的正则表达式，匹配文件在种子中的相对路径（以/分隔），例如样片、截图目录等。
+     */
+    private List<String> excludes = new ArrayList<>(List.of("(?i)(^|[/._ -])sample([/._ -]|$)"));
+
+    /**
+     * 等待磁力链接元数据时重试的间隔（秒）。
+     */
+    private int metadataRetryInterval = 5;
+
+    /**
+     * 等待磁力链接元数据时的最大重试次数，超过后不再调整该种子的文件优先级。
+     */
+    private int metadataRetries = 120;
+}
@@ -0,0 +1,57 @@
+package tdck.qdz.torrentbot.config;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.index.IndexOperations;
+import org.springframework.data.mongodb.core.index.MongoPersistentEntityIndexResolver;
+import tdck.qdz.torrentbot.model.ContentIndexEntry;
+import tdck.qdz.torrentbot.model.CopyJob;
+import tdck.qdz.torrentbot.model.CopyJournalEntry;
+import tdck.qdz.torrentbot.model.TorrentTask;
+
+import java.util.List;
+
+/**
+ * 配置类，用于在应用启动时创建MongoDB索引。
+ * Spring Boot默认关闭了自动创建索引，因此在应用启动完成后根据实体类上的索引注解显式创建（已存在的索引不会重复创建）。
+ */
+@Slf4j
+@Configuration
+@RequiredArgsConstructor
+public class MongoIndexConfig {
+    /**
+     * 需要创建索引的实体类。
+     */
+    private static final List<Class<?>> INDEXED_ENTITIES = List.of(
+            TorrentTask.class,
+            CopyJournalEntry.class,
+            CopyJob.class,
+            ContentIndexEntry.class);
+
+    /**
+     * 注入的MongoTemplate对象，用于与MongoDB数据库进行交互。
+     */
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * 应用启动完成后为所有实体类创建索引。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void ensureIndexes() {
+        MongoPersistentEntityIndexResolver resolver =
+                new MongoPersistentEntityIndexResolver(mongoTemplate.getConverter().getMappingContext());
+        for (Class<?> entity : INDEXED_ENTITIES) {
+            try {
+                IndexOperations indexOps = mongoTemplate.indexOps(entity);
+                resolver.resolveIndexFor(entity).forEach(indexOps::ensureIndex);
+                log.info("索引检查完成: {}", entity.getSimpleName());
+            } catch (Exception e) {
+                log.error("创建索引失败: {}, {}", entity.getSimpleName(), e.getMessage());
+            }
+        }
+    }
+}
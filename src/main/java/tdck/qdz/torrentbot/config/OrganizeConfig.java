@@ -0,0 +1,87 @@
+package tdck.qdz.torrentbot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 配置类，用于存储文件整理（复制）相关的配置信息。
+ * 包括整理方式、复制线程数、分段大小、每个目标设备的并发上限以及整理任务队列的并发上限等。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "organize.options")
+public class OrganizeConfig {
+    /**
+     * 整理方式，默认复制。
+     * 硬链接与做种数据共用同一份内容，修改整理后的文件（例如改写元数据）也会改动正在做种的文件，因此需要显式开启。
+     */
+    private Mode mode = Mode.COPY;
+
+    /**
+     * 复制线程池的线程数。
+     */
+    private int copyThreads = 4;
+
+    /**
+     * 分段大小（MB），超过该大小的文件会被拆分成多个分段并行复制。
+     */
+    private int rangeSize = 256;
+
+    /**
+     * 每个目标设备（文件系统）同时进行的分段复制数量上限，避免机械硬盘因并发寻道而降速。
+     */
+    private int perDeviceConcurrency = 2;
+
+    /**
+     * 是否在复制时计算CRC32C并读回目标文件校验，默认关闭。
+     * 开启后能发现损坏的副本，但复制改为经由缓冲区读写，不再使用 transferTo 零拷贝，CPU占用更高。
+     */
+    private boolean verify = false;
+
+    /**
+     * 是否使用直接I/O（O_DIRECT）复制，绕过页缓存，避免整理时把qBittorrent正在做种的数据挤出缓存。
+     * 开启校验时读回校验也会直接读取磁盘。
+     */
+    private boolean directIo = false;
+
+    /**
+     * 是否启用内容去重。开启后整理前在内容去重索引中查找内容相同的已整理文件，找到时跳过复制或改为硬链接。
+     */
+    private boolean dedup = true;
+
+    /**
+     * 同时执行的整理任务（种子）数量上限。
+     */
+    private int jobThreads = 2;
+
+    /**
+     * 每个源设备和目标设备同时执行的整理任务数量上限。
+     * 大量种子同时下载完成时，同一块机械硬盘上的任务排队依次执行，而不是几十个复制流交错读写。
+     */
+    private int jobsPerDevice = 1;
+
+    /**
+     * 整理任务自动执行的最大次数，失败达到该次数后不再由兜底检查重新入队，只能通过 /organize 命令手动重试。
+     */
+    private int maxAttempts = 5;
+
+    /**
+     * 整理任务失败后重新入队前等待的时间（分钟），每多失败一次等待时间翻倍。
+     */
+    private int retryBackoff = 10;
+
+    /**
+     * 枚举类型，用于表示文件整理方式。
+     * - AUTO：源和目标在同一文件系统时依次尝试硬链接、reflink，都失败时复制；不在同一文件系统时直接复制
+     * - HARDLINK：尝试硬链接，失败时复制
+     * - REFLINK：尝试reflink（写时复制克隆，需要btrfs、XFS等文件系统支持），失败时复制
+     * - COPY：总是复制
+     */
+    public enum Mode {
+        AUTO,
+        HARDLINK,
+        REFLINK,
+        COPY
+    }
+}
@@ -0,0 +1,40 @@
+package tdck.qdz.torrentbot.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * 配置类，用于存储下载状态轮询的配置信息。
+ * 轮询间隔根据种子的剩余时间和活跃程度在最小间隔和最大间隔之间自动调整，没有跟踪中的任务时停止轮询。
+ */
+@Data
+@Configuration
+@ConfigurationProperties(prefix = "poll.options")
+public class PollConfig {
+    /**
+     * 最小轮询间隔（秒），种子即将下载完成时使用。
+     */
+    private int minInterval = 2;
+
+    /**
+     * 最大轮询间隔（秒），所有种子都处于停滞、暂停或排队状态时逐步退避到该间隔。
+     */
+    private int maxInterval = 60;
+
+    /**
+     * 兜底整理检查的间隔（分钟），用于处理错过完成事件的已完成任务。
+     */
+    private int organizeInterval = 10;
+
+    /**
+     * 是否监听下载目录的文件变化。开启后文件写入结束时立即检查对应种子，下载完成后马上开始整理，
+     * 不必等待下一次轮询。下载目录必须是本机可访问的路径。
+     */
+    private boolean watchEnabled = false;
+
+    /**
+     * 文件变化的静默时间（秒），同一文件在该时间内没有新的变化才检查对应的种子。
+     */
+    private int watchDebounce = 3;
+}
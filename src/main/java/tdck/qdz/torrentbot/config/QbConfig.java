@@ -41,4 +41,34 @@ public class QbConfig {
      * 下载任务的目标路径。
      */
     private String downloadPath;
+
+    /**
+     * 连接池的最大连接数，qBittorrent只有一个主机，因此同时也是单路由的连接上限。
+     */
+    private int maxConnections = 16;
+
+    /**
+     * 建立连接的超时时间（秒）。
+     */
+    private int connectTimeout = 5;
+
+    /**
+     * 等待响应的超时时间（秒）。
+     */
+    private int responseTimeout = 30;
+
+    /**
+     * 空闲连接的保持时间（秒），超过该时间的空闲连接会被回收。
+     */
+    private int keepAlive = 60;
+
+    /**
+     * 是否合并短时间内到达的同类批量操作（暂停、恢复、删除、标签），默认关闭。
+     */
+    private boolean coalesce = false;
+
+    /**
+     * 批量操作的合并窗口（毫秒），开启合并时窗口内到达的同类操作会合并为一次请求。
+     */
+    private int coalesceWindow = 5;
 }
\ No newline at end of file
@@ -5,7 +5,7 @@ import org.springframework.context.ApplicationEvent;
 
 /**
  * 事件类，用于表示添加种子的事件。
- * 包含种子的磁力链接、用户ID和聊天ID等信息。
+ * 包含种子的磁力链接、哈希值、用户ID和聊天ID等信息。
  */
 @Getter
 public class AddTorrentEvent extends ApplicationEvent {
@@ -14,6 +14,11 @@ public class AddTorrentEvent extends ApplicationEvent {
      */
     private final String magnetUrl;
 
+    /**
+     * 种子的哈希值，添加种子前在本地计算得到，无法计算时为null。
+     */
+    private final String hash;
+
     /**
      * 用户ID，标识触发事件的用户。
      */
@@ -29,12 +34,14 @@ public class AddTorrentEvent extends ApplicationEvent {
      *
      * @param source    事件源对象
      * @param magnetUrl 种子的磁力链接
+     * @param hash      种子的哈希值
      * @param userId    用户ID
      * @param chatId    聊天ID
      */
-    public AddTorrentEvent(Object source, String magnetUrl, Long userId, Long chatId) {
+    public AddTorrentEvent(Object source, String magnetUrl, String hash, Long userId, Long chatId) {
         super(source);
         this.magnetUrl = magnetUrl;
+        this.hash = hash;
         this.userId = userId;
         this.chatId = chatId;
     }
@@ -0,0 +1,34 @@
+package tdck.qdz.torrentbot.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 事件类，用于表示用户请求优先整理种子的事件。
+ * 包含聊天ID和用于匹配任务名称的关键字。
+ */
+@Getter
+public class OrganizeRequestEvent extends ApplicationEvent {
+    /**
+     * 聊天ID，标识触发事件的聊天会话。
+     */
+    private final String chatId;
+
+    /**
+     * 任务名称关键字，为空时只返回整理队列的状态。
+     */
+    private final String keyword;
+
+    /**
+     * 构造函数，初始化事件对象。
+     *
+     * @param source  事件源对象
+     * @param chatId  聊天ID
+     * @param keyword 任务名称关键字
+     */
+    public OrganizeRequestEvent(Object source, String chatId, String keyword) {
+        super(source);
+        this.chatId = chatId;
+        this.keyword = keyword;
+    }
+}
@@ -0,0 +1,27 @@
+package tdck.qdz.torrentbot.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+/**
+ * 事件类，用于表示种子下载完成的事件。
+ * 在任务状态变为已完成并写入数据库后发布，触发文件整理。
+ */
+@Getter
+public class TorrentCompletedEvent extends ApplicationEvent {
+    /**
+     * 下载完成的种子的哈希值。
+     */
+    private final String hash;
+
+    /**
+     * 构造函数，初始化事件对象。
+     *
+     * @param source 事件源对象
+     * @param hash   种子的哈希值
+     */
+    public TorrentCompletedEvent(Object source, String hash) {
+        super(source);
+        this.hash = hash;
+    }
+}
@@ -0,0 +1,30 @@
+package tdck.qdz.torrentbot.event;
+
+import lombok.Getter;
+import org.springframework.context.ApplicationEvent;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 事件类，用于表示种子已从qBittorrent中删除的事件。
+ * 通过 {@link tdck.qdz.torrentbot.service.QbService#deleteTorrents} 删除成功后，以及增量同步发现种子被删除（例如在qBittorrent中手动删除）时发布。
+ */
+@Getter
+public class TorrentRemovedEvent extends ApplicationEvent {
+    /**
+     * 被删除的种子的哈希值。
+     */
+    private final List<String> hashes;
+
+    /**
+     * 构造函数，初始化事件对象。
+     *
+     * @param source 事件源对象
+     * @param hashes 被删除的种子的哈希值
+     */
+    public TorrentRemovedEvent(Object source, Collection<String> hashes) {
+        super(source);
+        this.hashes = List.copyOf(hashes);
+    }
+}
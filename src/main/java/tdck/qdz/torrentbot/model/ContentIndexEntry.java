@@ -0,0 +1,48 @@
+package tdck.qdz.torrentbot.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * 模型类，用于记录已整理文件的内容摘要（内容去重索引）。
+ * 按文件大小和抽样哈希值查找内容可能相同的文件，抽样哈希值相同时再比较完整哈希值，确认相同后跳过复制或改为硬链接。
+ */
+@Data
+@Document(collection = "content_index")
+@CompoundIndex(name = "size_sampleHash", def = "{'size': 1, 'sampleHash': 1}")
+public class ContentIndexEntry {
+    /**
+     * 主键ID，即已整理文件的路径。
+     */
+    @Id
+    private String id;
+
+    /**
+     * 文件大小（字节）。
+     */
+    private long size;
+
+    /**
+     * 抽样哈希值，由文件开头、中间和结尾的数据块计算。
+     */
+    private String sampleHash;
+
+    /**
+     * 完整的SHA-256哈希值，只在抽样哈希值与其他文件相同时计算并缓存。
+     */
+    private String fullHash;
+
+    /**
+     * 文件的最后修改时间（毫秒），与当前文件不一致时条目作废。
+     */
+    private long modified;
+
+    /**
+     * 最后更新时间。
+     */
+    private LocalDateTime updateTime;
+}
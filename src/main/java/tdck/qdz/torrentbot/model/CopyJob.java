@@ -0,0 +1,101 @@
+package tdck.qdz.torrentbot.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+
+/**
+ * 模型类，用于表示复制任务队列中的一个整理任务。
+ * 每个种子对应一个任务，按优先级从高到低、种子大小从小到大、入队时间从早到晚的顺序执行。
+ * 任务保存在数据库中，应用重启后未完成的任务会重新排队。
+ */
+@Data
+@Document(collection = "copy_jobs")
+@CompoundIndex(name = "status_priority_size", def = "{'status': 1, 'priority': -1, 'size': 1, 'createTime': 1}")
+public class CopyJob {
+    /**
+     * 自动整理（下载完成或兜底检查发现）的任务优先级。
+     */
+    public static final int PRIORITY_AUTO = 0;
+
+    /**
+     * 用户通过 /organize 命令请求整理的任务优先级，排在自动整理的任务之前。
+     */
+    public static final int PRIORITY_USER = 10;
+
+    /**
+     * 主键ID，即种子的哈希值。
+     */
+    @Id
+    private String id;
+
+    /**
+     * 种子的名称。
+     */
+    private String name;
+
+    /**
+     * 种子的总大小（字节），优先级相同时小的种子先整理。
+     */
+    private long size;
+
+    /**
+     * 任务优先级，数值越大越先执行。
+     */
+    private int priority;
+
+    /**
+     * 任务状态。
+     */
+    private Status status;
+
+    /**
+     * 源文件所在的设备（文件系统的挂载点和名称）。
+     */
+    private String sourceDevice;
+
+    /**
+     * 目标路径所在的设备（文件系统的挂载点和名称）。
+     */
+    private String targetDevice;
+
+    /**
+     * 已执行的次数，用户请求整理时重新计数。
+     */
+    private int attempts;
+
+    /**
+     * 失败后允许再次入队的时间，按已执行次数指数退避。
+     */
+    private LocalDateTime nextAttemptTime;
+
+    /**
+     * 最近一次失败的原因。
+     */
+    private String error;
+
+    /**
+     * 入队时间。
+     */
+    private LocalDateTime createTime;
+
+    /**
+     * 最后更新时间。
+     */
+    private LocalDateTime updateTime;
+
+    /**
+     * 枚举类型，用于表示整理任务的状态。
+     * - QUEUED：排队中
+     * - RUNNING：执行中
+     * - FAILED：执行失败，退避时间过后由兜底检查重新入队；达到最大执行次数后不再自动入队
+     */
+    public enum Status {
+        QUEUED,
+        RUNNING,
+        FAILED
+    }
+}
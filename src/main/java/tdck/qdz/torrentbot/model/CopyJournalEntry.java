@@ -0,0 +1,82 @@
+package tdck.qdz.torrentbot.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.Indexed;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 模型类，用于记录单个文件的复制进度（复制日志）。
+ * 每个分段复制完成并落盘后记录其起始位置，进程重启后只需复制尚未完成的分段。
+ */
+@Data
+@Document(collection = "copy_journal")
+public class CopyJournalEntry {
+    /**
+     * 主键ID，由日志键和目标路径组成。
+     */
+    @Id
+    private String id;
+
+    /**
+     * 日志键，通常是种子的哈希值，同一次整理的所有文件使用相同的键。
+     */
+    @Indexed
+    private String key;
+
+    /**
+     * 源文件路径。
+     */
+    private String source;
+
+    /**
+     * 目标文件路径。
+     */
+    private String target;
+
+    /**
+     * 源文件大小（字节），与当前源文件不一致时日志作废。
+     */
+    private long size;
+
+    /**
+     * 源文件的最后修改时间（毫秒），与当前源文件不一致时日志作废。
+     */
+    private long sourceModified;
+
+    /**
+     * 记录日志时使用的分段大小（字节），分段大小变化后日志作废。
+     */
+    private long rangeSize;
+
+    /**
+     * 已完成分段的起始位置。
+     */
+    private Set<Long> completedRanges = new HashSet<>();
+
+    /**
+     * 已完成分段的CRC32C，键为分段的起始位置。未开启校验时为空。
+     */
+    private Map<String, Long> rangeChecksums = new HashMap<>();
+
+    /**
+     * 文件的校验和，文件复制完成且开启校验时记录。
+     */
+    private String checksum;
+
+    /**
+     * 文件是否已全部复制完成。
+     */
+    private boolean completed;
+
+    /**
+     * 日志的更新时间。
+     */
+    private LocalDateTime updateTime;
+}
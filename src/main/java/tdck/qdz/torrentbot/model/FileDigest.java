@@ -0,0 +1,30 @@
+package tdck.qdz.torrentbot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 模型类，用于记录整理后文件的校验和。
+ * 保存在 {@link TorrentTask} 中，用于之后重新检查副本是否损坏。
+ * 只有开启 organize.options.verify 并实际复制的文件才有校验和，硬链接、reflink和内容去重跳过的文件不会重新读取计算。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class FileDigest {
+    /**
+     * 文件相对于整理目标目录的路径。
+     */
+    private String path;
+
+    /**
+     * 文件大小（字节）。
+     */
+    private long size;
+
+    /**
+     * 文件的校验和，格式为 crc32c-分段大小MB:8位十六进制。
+     */
+    private String checksum;
+}
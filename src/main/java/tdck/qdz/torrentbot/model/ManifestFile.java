@@ -0,0 +1,29 @@
+package tdck.qdz.torrentbot.model;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * 模型类，用于表示种子文件清单中的单个文件。
+ * 保存在 {@link TorrentManifest} 中。
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ManifestFile {
+    /**
+     * 文件相对于种子保存路径的路径（以/分隔），多文件种子包含根目录。
+     */
+    private String path;
+
+    /**
+     * 文件大小（字节）。
+     */
+    private long size;
+
+    /**
+     * 文件的下载优先级，0表示不下载。
+     */
+    private int priority;
+}
@@ -1,11 +1,13 @@
 package tdck.qdz.torrentbot.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
 import com.fasterxml.jackson.annotation.JsonProperty;
 import com.fasterxml.jackson.databind.annotation.JsonDeserialize;
 import lombok.Data;
 
 import java.util.List;
+import java.util.Set;
 
 /**
  * 模型类，用于表示Qbittorrent中的种子任务信息。
@@ -14,6 +16,12 @@ import java.util.List;
 @Data
 @JsonIgnoreProperties(ignoreUnknown = true)
 public class QbTorrent {
+    /**
+     * 表示下载已完成的种子状态，包括做种、暂停做种、排队做种、强制做种和校验中（已完成）等。
+     */
+    static final Set<String> COMPLETED_STATES = Set.of(
+            "uploading", "stalledUP", "pausedUP", "stoppedUP", "queuedUP", "forcedUP", "checkingUP");
+
     /**
      * 种子的唯一标识符（哈希值），用于区分不同的种子任务。
      */
@@ -111,6 +119,12 @@ public class QbTorrent {
     @JsonProperty("added_on")
     private long addedOn;
 
+    /**
+     * 种子内容的绝对路径，单文件种子为文件路径，多文件种子为根目录路径。
+     */
+    @JsonProperty("content_path")
+    private String contentPath;
+
     /**
      * 种子的完成时间戳（秒），表示种子完成下载的时间。
      */
@@ -122,4 +136,14 @@ public class QbTorrent {
      */
     @JsonProperty("last_activity")
     private long lastActivity;
-}
\ No newline at end of file
+
+    /**
+     * 判断种子是否已下载完成。
+     *
+     * @return 如果种子处于已完成状态或进度已达到100%则返回true
+     */
+    @JsonIgnore
+    public boolean isCompleted() {
+        return progress >= 1.0 || COMPLETED_STATES.contains(state);
+    }
+}
@@ -0,0 +1,48 @@
+package tdck.qdz.torrentbot.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnoreProperties;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import lombok.Data;
+
+/**
+ * 模型类，用于表示qBittorrent中种子包含的单个文件。
+ * 对应 /api/v2/torrents/files 接口返回的文件信息。
+ */
+@Data
+@JsonIgnoreProperties(ignoreUnknown = true)
+public class QbTorrentFile {
+    /**
+     * 不下载的文件优先级。
+     */
+    public static final int PRIORITY_SKIP = 0;
+
+    /**
+     * 文件在种子中的序号，设置文件优先级时使用。
+     */
+    @JsonProperty("index")
+    private int index;
+
+    /**
+     * 文件相对于保存路径的路径，多文件种子包含根目录。
+     */
+    @JsonProperty("name")
+    private String name;
+
+    /**
+     * 文件大小（字节）。
+     */
+    @JsonProperty("size")
+    private long size;
+
+    /**
+     * 文件的下载进度，取值范围为0到1。
+     */
+    @JsonProperty("progress")
+    private double progress;
+
+    /**
+     * 文件的下载优先级，0表示不下载。
+     */
+    @JsonProperty("priority")
+    private int priority;
+}
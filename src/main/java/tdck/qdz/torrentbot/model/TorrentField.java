@@ -0,0 +1,64 @@
+package tdck.qdz.torrentbot.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 枚举类型，表示 /api/v2/torrents/info 中可以按需读取的种子字段。
+ * 用于 {@link TorrentSnapshot} 的字段投影，调用方只读取自己需要的字段，其余字段在解析时直接跳过。
+ * 哈希值总是会被读取，不需要单独指定。
+ */
+public enum TorrentField {
+    NAME("name"),
+    SIZE("size"),
+    PROGRESS("progress"),
+    DOWNLOAD_SPEED("dlspeed"),
+    UPLOAD_SPEED("upspeed"),
+    ETA("eta"),
+    STATE("state"),
+    CATEGORY("category"),
+    SAVE_PATH("save_path"),
+    SEEDERS("num_seeds"),
+    LEECHERS("num_leechs"),
+    ADDED_ON("added_on"),
+    COMPLETION_ON("completion_on");
+
+    /**
+     * JSON字段名到枚举值的映射，用于解析时快速查找。
+     */
+    private static final Map<String, TorrentField> BY_JSON_NAME = new HashMap<>();
+
+    static {
+        for (TorrentField field : values()) {
+            BY_JSON_NAME.put(field.jsonName, field);
+        }
+    }
+
+    /**
+     * 字段在qBittorrent接口返回的JSON中的名称。
+     */
+    private final String jsonName;
+
+    TorrentField(String jsonName) {
+        this.jsonName = jsonName;
+    }
+
+    /**
+     * 获取字段在JSON中的名称。
+     *
+     * @return JSON字段名
+     */
+    public String getJsonName() {
+        return jsonName;
+    }
+
+    /**
+     * 根据JSON字段名查找对应的枚举值。
+     *
+     * @param jsonName JSON字段名
+     * @return 对应的枚举值，如果不是可投影字段则返回null
+     */
+    public static TorrentField fromJsonName(String jsonName) {
+        return BY_JSON_NAME.get(jsonName);
+    }
+}
@@ -0,0 +1,34 @@
+package tdck.qdz.torrentbot.model;
+
+import lombok.Data;
+import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.mapping.Document;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 模型类，用于缓存种子的文件清单。
+ * 种子获取到元数据后文件列表不再变化，整理时直接按清单处理种子自己的文件，不必遍历整个保存目录。
+ * 文件优先级可能被用户修改，清单过期时重新获取；种子整理完成或被删除后清单随之删除。
+ */
+@Data
+@Document(collection = "torrent_manifests")
+public class TorrentManifest {
+    /**
+     * 主键ID，即种子的哈希值。
+     */
+    @Id
+    private String id;
+
+    /**
+     * 种子包含的文件。
+     */
+    private List<ManifestFile> files = new ArrayList<>();
+
+    /**
+     * 最后更新时间。
+     */
+    private LocalDateTime updateTime;
+}
@@ -0,0 +1,332 @@
+package tdck.qdz.torrentbot.model;
+
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * 模型类，以列式结构保存一次种子列表查询的结果。
+ * 每个字段保存在一个数组中，数值字段使用基本类型数组，状态、分类和保存路径等重复度高的字符串会被复用。
+ * 同一个快照对象可以在多次轮询之间重复使用，数组只在种子数量增长时扩容，
+ * 因此种子数量增多时内存占用和GC压力基本保持不变。
+ * <p>
+ * 快照不是线程安全的，重复使用时应由同一个调用方持有。
+ */
+public class TorrentSnapshot {
+    /**
+     * 数组的初始容量。
+     */
+    private static final int INITIAL_CAPACITY = 64;
+
+    /**
+     * 字符串复用表的最大条目数，超过后清空，避免异常数据导致复用表无限增长。
+     */
+    private static final int MAX_INTERNED = 4096;
+
+    /**
+     * 哈希值到行号的映射。
+     */
+    private final Map<String, Integer> index = new HashMap<>();
+
+    /**
+     * 重复字符串的复用表，用于状态、分类和保存路径。
+     */
+    private final Map<String, String> interned = new HashMap<>();
+
+    /**
+     * 本次读取的字段集合。
+     */
+    private final Set<TorrentField> fields = EnumSet.noneOf(TorrentField.class);
+
+    /**
+     * 当前快照中的种子数量。
+     */
+    private int count;
+
+    private String[] hashes = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private long[] sizes = new long[INITIAL_CAPACITY];
+    private double[] progress = new double[INITIAL_CAPACITY];
+    private long[] downloadSpeeds = new long[INITIAL_CAPACITY];
+    private long[] uploadSpeeds = new long[INITIAL_CAPACITY];
+    private long[] etas = new long[INITIAL_CAPACITY];
+    private String[] states = new String[INITIAL_CAPACITY];
+    private String[] categories = new String[INITIAL_CAPACITY];
+    private String[] savePaths = new String[INITIAL_CAPACITY];
+    private int[] seeders = new int[INITIAL_CAPACITY];
+    private int[] leechers = new int[INITIAL_CAPACITY];
+    private long[] addedOn = new long[INITIAL_CAPACITY];
+    private long[] completionOn = new long[INITIAL_CAPACITY];
+
+    /**
+     * 从 /api/v2/torrents/info 的响应流中读取种子列表，只解析指定的字段，覆盖快照中原有的数据。
+     *
+     * @param parser    指向响应JSON开头的解析器
+     * @param requested 需要读取的字段
+     * @throws IOException 如果JSON格式不正确或读取过程中发生IO异常，则抛出此异常
+     */
+    public void read(JsonParser parser, Set<TorrentField> requested) throws IOException {
+        clear();
+        append(parser, requested);
+    }
+
+    /**
+     * 从 /api/v2/torrents/info 的响应流中读取种子列表，追加到快照已有的数据之后。
+     * 用于按哈希值分组多次请求时，将各组结果合并到同一个快照中。
+     *
+     * @param parser    指向响应JSON开头的解析器
+     * @param requested 需要读取的字段
+     * @throws IOException 如果JSON格式不正确或读取过程中发生IO异常，则抛出此异常
+     */
+    public void append(JsonParser parser, Set<TorrentField> requested) throws IOException {
+        fields.addAll(requested);
+
+        if (parser.nextToken() != JsonToken.START_ARRAY) {
+            throw new IOException("种子列表格式不正确，期望JSON数组");
+        }
+        while (parser.nextToken() == JsonToken.START_OBJECT) {
+            ensureCapacity(count + 1);
+            int row = count;
+            resetRow(row);
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String name = parser.currentName();
+                parser.nextToken();
+                if ("hash".equals(name)) {
+                    hashes[row] = parser.getText();
+                    continue;
+                }
+                TorrentField field = TorrentField.fromJsonName(name);
+                if (field == null || !fields.contains(field)) {
+                    parser.skipChildren();
+                    continue;
+                }
+                readField(parser, field, row);
+            }
+            if (hashes[row] != null) {
+                index.put(hashes[row], row);
+                count++;
+            }
+        }
+    }
+
+    /**
+     * 读取单个已投影字段的值到对应列。
+     *
+     * @param parser 指向字段值的解析器
+     * @param field  字段
+     * @param row    行号
+     * @throws IOException 如果读取过程中发生IO异常，则抛出此异常
+     */
+    private void readField(JsonParser parser, TorrentField field, int row) throws IOException {
+        switch (field) {
+            case NAME -> names[row] = parser.getValueAsString();
+            case SIZE -> sizes[row] = parser.getValueAsLong();
+            case PROGRESS -> progress[row] = parser.getValueAsDouble();
+            case DOWNLOAD_SPEED -> downloadSpeeds[row] = parser.getValueAsLong();
+            case UPLOAD_SPEED -> uploadSpeeds[row] = parser.getValueAsLong();
+            case ETA -> etas[row] = parser.getValueAsLong();
+            case STATE -> states[row] = intern(parser.getValueAsString());
+            case CATEGORY -> categories[row] = intern(parser.getValueAsString());
+            case SAVE_PATH -> savePaths[row] = intern(parser.getValueAsString());
+            case SEEDERS -> seeders[row] = parser.getValueAsInt();
+            case LEECHERS -> leechers[row] = parser.getValueAsInt();
+            case ADDED_ON -> addedOn[row] = parser.getValueAsLong();
+            case COMPLETION_ON -> completionOn[row] = parser.getValueAsLong();
+        }
+    }
+
+    /**
+     * 复用相同内容的字符串实例。
+     *
+     * @param value 原始字符串
+     * @return 复用表中的字符串实例
+     */
+    private String intern(String value) {
+        if (value == null) {
+            return null;
+        }
+        String existing = interned.get(value);
+        if (existing != null) {
+            return existing;
+        }
+        if (interned.size() >= MAX_INTERNED) {
+            interned.clear();
+        }
+        interned.put(value, value);
+        return value;
+    }
+
+    /**
+     * 清空快照内容，保留已分配的数组以便重复使用。
+     */
+    public void clear() {
+        Arrays.fill(hashes, 0, count, null);
+        Arrays.fill(names, 0, count, null);
+        count = 0;
+        index.clear();
+        fields.clear();
+    }
+
+    /**
+     * 重置指定行的所有列。
+     *
+     * @param row 行号
+     */
+    private void resetRow(int row) {
+        hashes[row] = null;
+        names[row] = null;
+        sizes[row] = 0;
+        progress[row] = 0;
+        downloadSpeeds[row] = 0;
+        uploadSpeeds[row] = 0;
+        etas[row] = 0;
+        states[row] = null;
+        categories[row] = null;
+        savePaths[row] = null;
+        seeders[row] = 0;
+        leechers[row] = 0;
+        addedOn[row] = 0;
+        completionOn[row] = 0;
+    }
+
+    /**
+     * 确保所有列至少能容纳指定数量的行，容量不足时按1.5倍扩容。
+     *
+     * @param required 需要的行数
+     */
+    private void ensureCapacity(int required) {
+        if (required <= hashes.length) {
+            return;
+        }
+        int capacity = Math.max(required, hashes.length + (hashes.length >> 1));
+        hashes = Arrays.copyOf(hashes, capacity);
+        names = Arrays.copyOf(names, capacity);
+        sizes = Arrays.copyOf(sizes, capacity);
+        progress = Arrays.copyOf(progress, capacity);
+        downloadSpeeds = Arrays.copyOf(downloadSpeeds, capacity);
+        uploadSpeeds = Arrays.copyOf(uploadSpeeds, capacity);
+        etas = Arrays.copyOf(etas, capacity);
+        states = Arrays.copyOf(states, capacity);
+        categories = Arrays.copyOf(categories, capacity);
+        savePaths = Arrays.copyOf(savePaths, capacity);
+        seeders = Arrays.copyOf(seeders, capacity);
+        leechers = Arrays.copyOf(leechers, capacity);
+        addedOn = Arrays.copyOf(addedOn, capacity);
+        completionOn = Arrays.copyOf(completionOn, capacity);
+    }
+
+    /**
+     * 获取快照中的种子数量。
+     *
+     * @return 种子数量
+     */
+    public int size() {
+        return count;
+    }
+
+    /**
+     * 判断本次快照是否读取了指定字段。
+     *
+     * @param field 字段
+     * @return 如果读取了该字段则返回true
+     */
+    public boolean hasField(TorrentField field) {
+        return fields.contains(field);
+    }
+
+    /**
+     * 根据哈希值查找行号。
+     *
+     * @param hash 种子的哈希值
+     * @return 行号，如果不存在则返回-1
+     */
+    public int indexOf(String hash) {
+        Integer row = index.get(hash);
+        return row == null ? -1 : row;
+    }
+
+    public String getHash(int row) {
+        return hashes[checkRow(row)];
+    }
+
+    public String getName(int row) {
+        return names[checkRow(row)];
+    }
+
+    public long getSize(int row) {
+        return sizes[checkRow(row)];
+    }
+
+    public double getProgress(int row) {
+        return progress[checkRow(row)];
+    }
+
+    public long getDownloadSpeed(int row) {
+        return downloadSpeeds[checkRow(row)];
+    }
+
+    public long getUploadSpeed(int row) {
+        return uploadSpeeds[checkRow(row)];
+    }
+
+    public long getEta(int row) {
+        return etas[checkRow(row)];
+    }
+
+    public String getState(int row) {
+        return states[checkRow(row)];
+    }
+
+    public String getCategory(int row) {
+        return categories[checkRow(row)];
+    }
+
+    public String getSavePath(int row) {
+        return savePaths[checkRow(row)];
+    }
+
+    public int getSeeders(int row) {
+        return seeders[checkRow(row)];
+    }
+
+    public int getLeechers(int row) {
+        return leechers[checkRow(row)];
+    }
+
+    public long getAddedOn(int row) {
+        return addedOn[checkRow(row)];
+    }
+
+    public long getCompletionOn(int row) {
+        return completionOn[checkRow(row)];
+    }
+
+    /**
+     * 判断种子是否已下载完成，与 {@link QbTorrent#isCompleted()} 的规则相同。需要读取进度和状态字段。
+     *
+     * @param row 行号
+     * @return 如果种子处于已完成状态或进度已达到100%则返回true
+     */
+    public boolean isCompleted(int row) {
+        return progress[checkRow(row)] >= 1.0 || QbTorrent.COMPLETED_STATES.contains(states[row]);
+    }
+
+    /**
+     * 校验行号是否在有效范围内。
+     *
+     * @param row 行号
+     * @return 校验通过的行号
+     */
+    private int checkRow(int row) {
+        if (row < 0 || row >= count) {
+            throw new IndexOutOfBoundsException("行号超出范围: " + row + "，种子数量: " + count);
+        }
+        return row;
+    }
+}
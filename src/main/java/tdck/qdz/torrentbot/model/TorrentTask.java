@@ -2,16 +2,21 @@ package tdck.qdz.torrentbot.model;
 
 import lombok.Data;
 import org.springframework.data.annotation.Id;
+import org.springframework.data.mongodb.core.index.CompoundIndex;
+import org.springframework.data.mongodb.core.index.Indexed;
 import org.springframework.data.mongodb.core.mapping.Document;
 
 import java.time.LocalDateTime;
+import java.util.List;
 
 /**
  * 模型类，用于表示种子任务的详细信息。
  * 包含任务的基本信息（如哈希值、名称、状态等）以及下载详情（如文件大小、下载速度等）。
+ * 索引在应用启动时由 {@link tdck.qdz.torrentbot.config.MongoIndexConfig} 根据注解创建。
  */
 @Data
 @Document(collection = "torrent_tasks")
+@CompoundIndex(name = "status_updateTime", def = "{'status': 1, 'updateTime': -1}")
 public class TorrentTask {
     /**
      * 主键ID，唯一标识每个种子任务。
@@ -22,6 +27,7 @@ public class TorrentTask {
     /**
      * 种子的唯一标识符（哈希值），用于区分不同的种子任务。
      */
+    @Indexed
     private String hash;
 
     /**
@@ -105,6 +111,7 @@ public class TorrentTask {
     /**
      * 文件名，表示种子文件的名称。
      */
+    @Indexed
     private String fileName;
 
     /**
@@ -117,6 +124,11 @@ public class TorrentTask {
      */
     private String targetPath;
 
+    /**
+     * 整理后各文件的校验和，在开启校验的复制过程中计算得到，不包括链接或去重的文件。
+     */
+    private List<FileDigest> fileDigests;
+
     /**
      * 枚举类型，用于表示任务的状态。
      * - PENDING：待处理
@@ -0,0 +1,521 @@
+package tdck.qdz.torrentbot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.classic.methods.HttpPut;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
+import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
+import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
+import org.apache.hc.core5.http.ContentType;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.io.entity.AbstractHttpEntity;
+import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.config.AlistConfig;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.net.URLEncoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 服务类，用于与Alist进行交互，将整理的文件上传到Alist管理的存储（网盘、对象存储、远程主机等）。
+ * 登录后缓存令牌，令牌过期或失效时自动重新登录；多个文件通过 /api/fs/put 并行上传，
+ * 每个上传流按固定大小的缓冲区从磁盘读取，内存占用与文件大小无关。
+ * Alist不支持分段续传，因此以文件为单位续传：远程文件已存在且大小一致时跳过。
+ */
+@Slf4j
+@Service
+public class AlistService {
+    /**
+     * Alist响应中表示成功的状态码。
+     */
+    private static final int CODE_OK = 200;
+
+    /**
+     * Alist响应中表示令牌无效或过期的状态码。
+     */
+    private static final int CODE_UNAUTHORIZED = 401;
+
+    /**
+     * 注入的Alist配置对象。
+     */
+    private final AlistConfig alistConfig;
+
+    /**
+     * Jackson对象映射器，用于JSON序列化和反序列化。
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * HTTP客户端，连接数与上传线程数匹配。
+     */
+    private final CloseableHttpClient client;
+
+    /**
+     * 上传线程池。
+     */
+    private final ExecutorService executor;
+
+    /**
+     * 登录锁，保证并发请求同时发现令牌失效时只有一个线程执行登录。
+     */
+    private final Object loginLock = new Object();
+
+    /**
+     * 缓存的令牌，为null表示尚未登录或令牌已失效。
+     */
+    private volatile String token;
+
+    /**
+     * 令牌的过期时间（System.nanoTime）。
+     */
+    private volatile long tokenExpiry;
+
+    /**
+     * 一个上传请求。
+     *
+     * @param source     本地文件
+     * @param remotePath Alist中的目标路径
+     */
+    public record UploadRequest(Path source, String remotePath) {
+    }
+
+    /**
+     * 表示令牌无效的异常，收到后重新登录并重试一次。
+     */
+    private static final class TokenExpiredException extends IOException {
+        private TokenExpiredException(String message) {
+            super(message);
+        }
+    }
+
+    /**
+     * 表示Alist返回了错误码的异常。
+     */
+    private static final class AlistResponseException extends IOException {
+        /**
+         * Alist返回的错误码。
+         */
+        private final int code;
+
+        private AlistResponseException(String path, int code, String reason) {
+            super("Alist 请求失败: " + path + ", " + code + " - " + reason);
+            this.code = code;
+        }
+
+        /**
+         * 判断错误是否可能是对象不存在。Alist对不存在的对象返回404或500错误码，但500也用于存储异常等其他错误，
+         * 错误信息又随版本和语言变化，因此还需要列出上级目录确认。
+         *
+         * @return 如果错误码可能表示对象不存在则返回true
+         */
+        private boolean mayBeMissing() {
+            return code == 404 || code == 500;
+        }
+    }
+
+    public AlistService(AlistConfig alistConfig, ObjectMapper objectMapper) {
+        this.alistConfig = alistConfig;
+        this.objectMapper = objectMapper;
+        int threads = Math.max(1, alistConfig.getUploadThreads());
+        this.client = HttpClients.custom()
+                .setConnectionManager(PoolingHttpClientConnectionManagerBuilder.create()
+                        // 上传线程之外再预留登录和查询文件的连接
+                        .setMaxConnTotal(threads + 2)
+                        .setMaxConnPerRoute(threads + 2)
+                        .setDefaultConnectionConfig(ConnectionConfig.custom()
+                                .setConnectTimeout(Timeout.ofSeconds(10))
+                                .setSocketTimeout(Timeout.ofSeconds(alistConfig.getTimeout()))
+                                .build())
+                        .build())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setResponseTimeout(Timeout.ofSeconds(alistConfig.getTimeout()))
+                        .build())
+                .build();
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(threads, r -> {
+            Thread thread = new Thread(r, "alist-upload-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 登录Alist并缓存令牌。
+     *
+     * @return 新的令牌
+     * @throws IOException 如果登录失败，则抛出此异常
+     */
+    public String login() throws IOException {
+        synchronized (loginLock) {
+            HttpPost request = new HttpPost(alistConfig.getHost() + "/api/auth/login");
+            request.setEntity(json(Map.of(
+                    "username", alistConfig.getUsername(),
+                    "password", alistConfig.getPassword())));
+            JsonNode data = execute(request);
+            String newToken = data.path("token").asText(null);
+            if (newToken == null || newToken.isEmpty()) {
+                throw new IOException("Alist 登录成功但未获取到令牌");
+            }
+            token = newToken;
+            tokenExpiry = System.nanoTime() + TimeUnit.HOURS.toNanos(alistConfig.getTokenTtl());
+            log.info("Alist 登录成功，主机: {}", alistConfig.getHost());
+            return newToken;
+        }
+    }
+
+    /**
+     * 获取缓存的令牌，尚未登录或令牌已过期时先登录。
+     *
+     * @return 令牌
+     * @throws IOException 如果登录失败，则抛出此异常
+     */
+    private String token() throws IOException {
+        String current = token;
+        if (current != null && System.nanoTime() < tokenExpiry) {
+            return current;
+        }
+        synchronized (loginLock) {
+            if (token != null && System.nanoTime() < tokenExpiry) {
+                return token;
+            }
+            return login();
+        }
+    }
+
+    /**
+     * 使令牌失效。如果其他线程已经换成了新令牌，则保留新令牌。
+     *
+     * @param stale 失效的令牌
+     */
+    private void invalidate(String stale) {
+        synchronized (loginLock) {
+            if (Objects.equals(token, stale)) {
+                token = null;
+            }
+        }
+    }
+
+    /**
+     * 查询远程文件的大小。
+     *
+     * @param remotePath Alist中的文件路径
+     * @return 文件大小（字节），文件不存在时返回-1
+     * @throws IOException 如果请求失败（连接失败、超时、存储异常等，文件不存在除外），则抛出此异常
+     */
+    public long getFileSize(String remotePath) throws IOException {
+        try {
+            JsonNode data = call("/api/fs/get", Map.of("path", remotePath));
+            return data.path("is_dir").asBoolean(false) ? -1 : data.path("size").asLong(-1);
+        } catch (AlistResponseException e) {
+            // 只有确认文件不存在才返回-1，其他错误（例如存储异常）不能当作文件不存在
+            if (!e.mayBeMissing() || !isMissing(remotePath)) {
+                throw e;
+            }
+            log.debug("远程文件不存在: {}, {}", remotePath, e.getMessage());
+            return -1;
+        }
+    }
+
+    /**
+     * 通过列出上级目录判断远程对象是否不存在，不依赖错误信息的措辞。
+     * 上级目录能够列出且其中没有该对象时确认不存在；上级目录也无法列出时继续向上检查，
+     * 一直到根目录都无法列出（例如Alist或存储异常）时视为无法确认。
+     *
+     * @param remotePath Alist中的路径
+     * @return 如果确认对象不存在则返回true
+     * @throws IOException 如果请求失败，则抛出此异常
+     */
+    private boolean isMissing(String remotePath) throws IOException {
+        String path = remotePath.replaceAll("/+$", "");
+        int slash = path.lastIndexOf('/');
+        if (slash < 0) {
+            // 根目录总是存在
+            return false;
+        }
+        String parent = slash == 0 ? "/" : path.substring(0, slash);
+        String name = path.substring(slash + 1);
+        JsonNode data;
+        try {
+            data = call("/api/fs/list", Map.of("path", parent, "page", 1, "per_page", 0, "refresh", false));
+        } catch (AlistResponseException e) {
+            return e.mayBeMissing() && isMissing(parent);
+        }
+        for (JsonNode item : data.path("content")) {
+            if (name.equals(item.path("name").asText())) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 发送JSON请求，令牌失效时重新登录并重试一次。
+     *
+     * @param api  接口路径
+     * @param body 请求体对象
+     * @return 响应中的 data 字段
+     * @throws IOException 如果请求失败或Alist返回错误状态码，则抛出此异常
+     */
+    private JsonNode call(String api, Object body) throws IOException {
+        for (int attempt = 0; ; attempt++) {
+            String current = token();
+            HttpPost request = new HttpPost(alistConfig.getHost() + api);
+            request.setHeader(HttpHeaders.AUTHORIZATION, current);
+            request.setEntity(json(body));
+            try {
+                return execute(request);
+            } catch (TokenExpiredException e) {
+                invalidate(current);
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 上传单个文件，远程文件已存在时会被覆盖。
+     *
+     * @param source     本地文件
+     * @param remotePath Alist中的目标路径
+     * @throws IOException 如果上传失败，则抛出此异常
+     */
+    public void upload(Path source, String remotePath) throws IOException {
+        upload(source, remotePath, new AtomicBoolean());
+    }
+
+    /**
+     * 上传单个文件，中止标志置位后在下一个数据块前退出。
+     *
+     * @param source     本地文件
+     * @param remotePath Alist中的目标路径
+     * @param abort      中止标志
+     * @throws IOException 如果上传失败或已中止，则抛出此异常
+     */
+    private void upload(Path source, String remotePath, AtomicBoolean abort) throws IOException {
+        long size = Files.size(source);
+        for (int attempt = 0; ; attempt++) {
+            checkAbort(abort, source);
+            String current = token();
+            HttpPut request = new HttpPut(alistConfig.getHost() + "/api/fs/put");
+            request.setHeader(HttpHeaders.AUTHORIZATION, current);
+            request.setHeader("File-Path", URLEncoder.encode(remotePath, StandardCharsets.UTF_8).replace("+", "%20"));
+            request.setEntity(new FileUploadEntity(source, size, alistConfig.getUploadBuffer() * 1024, abort));
+            try {
+                execute(request);
+                return;
+            } catch (TokenExpiredException e) {
+                invalidate(current);
+                if (attempt > 0) {
+                    throw e;
+                }
+            }
+        }
+    }
+
+    /**
+     * 并行上传一组文件，所有文件上传完成后返回。远程文件已存在且大小一致时跳过，中断后重新整理只需上传剩余的文件。
+     * 是否已上传只按大小判断（Alist不一定提供文件哈希值），远程已有大小相同但内容不同的同名文件时也会被跳过。
+     * 任意文件上传失败后中止其余文件：排队中的文件不再开始，上传中的文件在下一个数据块前退出。
+     *
+     * @param requests 上传请求
+     * @return 处理的总字节数（包括跳过的文件）
+     * @throws IOException 如果任意文件上传失败，则抛出此异常
+     */
+    public long upload(List<UploadRequest> requests) throws IOException {
+        AtomicLong total = new AtomicLong();
+        AtomicInteger skipped = new AtomicInteger();
+        AtomicBoolean abort = new AtomicBoolean();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(requests.size());
+        for (UploadRequest request : requests) {
+            futures.add(CompletableFuture.runAsync(() -> {
+                try {
+                    checkAbort(abort, request.source());
+                    long size = Files.size(request.source());
+                    total.addAndGet(size);
+                    if (getFileSize(request.remotePath()) == size) {
+                        skipped.incrementAndGet();
+                        log.info("远程文件已存在，跳过上传: {}", request.remotePath());
+                        return;
+                    }
+                    long start = System.nanoTime();
+                    upload(request.source(), request.remotePath(), abort);
+                    long millis = Math.max(1, TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+                    log.info("上传完成: {} -> {}，速度: {}MB/s", request.source(), request.remotePath(),
+                            String.format("%.1f", size / 1024.0 / 1024 / millis * 1000));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }, executor).whenComplete((result, e) -> {
+                // 记录第一个失败的文件并置位中止标志
+                if (e != null && failure.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e)) {
+                    abort.set(true);
+                }
+            }));
+        }
+        try {
+            // 等待所有文件结束（中止的文件很快退出），返回后不会再有线程读取本地文件
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            failure.compareAndSet(null, e.getCause());
+        }
+        Throwable cause = failure.get();
+        if (cause instanceof UncheckedIOException io) {
+            throw io.getCause();
+        } else if (cause != null) {
+            throw new IOException("上传文件失败", cause);
+        }
+        log.info("上传到 Alist 完成，文件数: {}，跳过: {}，总大小: {}MB",
+                requests.size(), skipped.get(), total.get() / 1024 / 1024);
+        return total.get();
+    }
+
+    /**
+     * 检查本次上传是否已因其他文件失败而中止。
+     *
+     * @param abort 中止标志
+     * @param file  正在上传的文件
+     * @throws IOException 如果已中止，则抛出此异常
+     */
+    private static void checkAbort(AtomicBoolean abort, Path file) throws IOException {
+        if (abort.get()) {
+            throw new IOException("其他文件上传失败，已中止: " + file);
+        }
+    }
+
+    /**
+     * 发送请求并解析Alist的统一响应格式，返回其中的 data 字段。
+     *
+     * @param request 请求
+     * @return 响应中的 data 字段
+     * @throws IOException 如果请求失败或Alist返回错误状态码，则抛出此异常
+     */
+    private JsonNode execute(ClassicHttpRequest request) throws IOException {
+        return client.execute(request, response -> {
+            if (response.getCode() == HttpStatus.SC_UNAUTHORIZED) {
+                throw new TokenExpiredException("Alist 令牌无效");
+            }
+            if (response.getEntity() == null) {
+                throw new IOException("Alist 响应为空: " + response.getCode());
+            }
+            JsonNode root = objectMapper.readTree(response.getEntity().getContent());
+            int code = root.path("code").asInt(response.getCode());
+            if (code == CODE_UNAUTHORIZED) {
+                throw new TokenExpiredException("Alist 令牌无效: " + root.path("message").asText());
+            }
+            if (code != CODE_OK) {
+                throw new AlistResponseException(request.getPath(), code, root.path("message").asText());
+            }
+            return root.path("data");
+        });
+    }
+
+    /**
+     * 将对象序列化为JSON请求体。
+     *
+     * @param body 请求体对象
+     * @return JSON请求实体
+     * @throws IOException 如果序列化失败，则抛出此异常
+     */
+    private StringEntity json(Object body) throws IOException {
+        return new StringEntity(objectMapper.writeValueAsString(body), ContentType.APPLICATION_JSON);
+    }
+
+    /**
+     * 从磁盘流式读取文件的请求实体，使用固定大小的缓冲区，不会把文件读入内存。
+     */
+    private static final class FileUploadEntity extends AbstractHttpEntity {
+        private final Path file;
+        private final long length;
+        private final int bufferSize;
+        private final AtomicBoolean abort;
+
+        private FileUploadEntity(Path file, long length, int bufferSize, AtomicBoolean abort) {
+            super(ContentType.APPLICATION_OCTET_STREAM, null);
+            this.file = file;
+            this.length = length;
+            this.bufferSize = Math.max(8192, bufferSize);
+            this.abort = abort;
+        }
+
+        @Override
+        public InputStream getContent() throws IOException {
+            return Files.newInputStream(file);
+        }
+
+        @Override
+        public void writeTo(OutputStream out) throws IOException {
+            byte[] buffer = new byte[bufferSize];
+            long remaining = length;
+            try (InputStream in = Files.newInputStream(file)) {
+                while (remaining > 0) {
+                    checkAbort(abort, file);
+                    int read = in.read(buffer, 0, (int) Math.min(buffer.length, remaining));
+                    if (read < 0) {
+                        throw new IOException("上传过程中文件被截断: " + file);
+                    }
+                    out.write(buffer, 0, read);
+                    remaining -= read;
+                }
+            }
+        }
+
+        @Override
+        public boolean isRepeatable() {
+            return true;
+        }
+
+        @Override
+        public long getContentLength() {
+            return length;
+        }
+
+        @Override
+        public boolean isStreaming() {
+            return false;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    /**
+     * 关闭HTTP客户端和上传线程池。
+     *
+     * @throws IOException 如果关闭客户端时发生IO异常，则抛出此异常
+     */
+    @PreDestroy
+    public void close() throws IOException {
+        executor.shutdownNow();
+        client.close();
+    }
+}
@@ -0,0 +1,199 @@
+package tdck.qdz.torrentbot.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.model.ContentIndexEntry;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HexFormat;
+import java.util.List;
+
+/**
+ * 服务类，用于维护已整理文件的内容去重索引。
+ * 重新添加或辅种的种子经常包含目标目录中已经存在的文件，整理前按文件大小和抽样哈希值查找内容可能相同的已整理文件，
+ * 抽样哈希值相同时再比较完整哈希值，确认内容相同后由调用方跳过复制或改为硬链接。
+ * 完整哈希值只在抽样哈希值相同时计算，计算后缓存在索引中。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class ContentIndexService {
+    /**
+     * 抽样哈希值每个数据块的大小。
+     */
+    private static final int SAMPLE_SIZE = 64 * 1024;
+
+    /**
+     * 计算完整哈希值时的读取缓冲区大小。
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 注入的MongoTemplate对象，用于与MongoDB数据库进行交互。
+     */
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * 查找与源文件内容相同的已整理文件。
+     * 候选文件包括索引中大小和抽样哈希值相同的文件，以及已存在且大小相同的目标文件本身（例如重新添加的种子）。
+     * 已被删除或修改的文件对应的索引条目会被清除。
+     *
+     * @param source 源文件
+     * @param target 源文件整理后的目标路径
+     * @return 内容相同的已整理文件，如果不存在则返回null
+     * @throws IOException 如果读取文件时发生IO异常，则抛出此异常
+     */
+    public Path findDuplicate(Path source, Path target) throws IOException {
+        long size = Files.size(source);
+        String sampleHash = sampleHash(source);
+        List<ContentIndexEntry> candidates = new ArrayList<>(mongoTemplate.find(
+                new Query(Criteria.where("size").is(size).and("sampleHash").is(sampleHash)), ContentIndexEntry.class));
+        if (Files.isRegularFile(target) && Files.size(target) == size
+                && candidates.stream().noneMatch(entry -> entry.getId().equals(target.toString()))) {
+            ContentIndexEntry entry = new ContentIndexEntry();
+            entry.setId(target.toString());
+            entry.setSize(size);
+            entry.setSampleHash(sampleHash(target));
+            entry.setModified(Files.getLastModifiedTime(target).toMillis());
+            if (sampleHash.equals(entry.getSampleHash())) {
+                // 目标文件本身优先，内容相同时直接跳过
+                candidates.add(0, entry);
+            }
+        }
+
+        String sourceHash = null;
+        for (ContentIndexEntry candidate : candidates) {
+            Path path = Paths.get(candidate.getId());
+            if (!Files.isRegularFile(path) || Files.size(path) != size
+                    || Files.getLastModifiedTime(path).toMillis() != candidate.getModified()) {
+                log.debug("清除过期的内容索引: {}", path);
+                mongoTemplate.remove(new Query(Criteria.where("id").is(candidate.getId())), ContentIndexEntry.class);
+                continue;
+            }
+            if (sourceHash == null) {
+                sourceHash = fullHash(source);
+            }
+            String candidateHash = candidate.getFullHash();
+            if (candidateHash == null) {
+                candidateHash = fullHash(path);
+                candidate.setFullHash(candidateHash);
+                candidate.setUpdateTime(LocalDateTime.now());
+                mongoTemplate.save(candidate);
+            }
+            if (sourceHash.equals(candidateHash)) {
+                log.info("发现内容相同的已整理文件: {} = {}", source, path);
+                return path;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 将已整理的文件加入索引，已存在的条目会被覆盖。
+     *
+     * @param target 已整理的文件
+     * @throws IOException 如果读取文件时发生IO异常，则抛出此异常
+     */
+    public void record(Path target) throws IOException {
+        mongoTemplate.upsert(new Query(Criteria.where("id").is(target.toString())),
+                new Update()
+                        .set("size", Files.size(target))
+                        .set("sampleHash", sampleHash(target))
+                        .set("modified", Files.getLastModifiedTime(target).toMillis())
+                        .unset("fullHash")
+                        .set("updateTime", LocalDateTime.now()),
+                ContentIndexEntry.class);
+    }
+
+    /**
+     * 计算文件的抽样哈希值：对文件大小以及开头、中间、结尾各 {@value #SAMPLE_SIZE} 字节计算SHA-256。
+     * 文件不超过三个数据块时对整个文件计算。
+     *
+     * @param file 文件
+     * @return 十六进制的抽样哈希值
+     * @throws IOException 如果读取文件时发生IO异常，则抛出此异常
+     */
+    static String sampleHash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            digest.update(ByteBuffer.allocate(Long.BYTES).putLong(size).flip());
+            ByteBuffer buffer = ByteBuffer.allocate(SAMPLE_SIZE);
+            if (size <= 3L * SAMPLE_SIZE) {
+                readInto(channel, 0, size, buffer, digest);
+            } else {
+                readInto(channel, 0, SAMPLE_SIZE, buffer, digest);
+                readInto(channel, size / 2 - SAMPLE_SIZE / 2, SAMPLE_SIZE, buffer, digest);
+                readInto(channel, size - SAMPLE_SIZE, SAMPLE_SIZE, buffer, digest);
+            }
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 计算文件的完整SHA-256哈希值。
+     *
+     * @param file 文件
+     * @return 十六进制的哈希值
+     * @throws IOException 如果读取文件时发生IO异常，则抛出此异常
+     */
+    static String fullHash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            readInto(channel, 0, channel.size(), ByteBuffer.allocateDirect(BUFFER_SIZE), digest);
+        }
+        return HexFormat.of().formatHex(digest.digest());
+    }
+
+    /**
+     * 读取文件的指定区域并更新摘要。
+     *
+     * @param channel 文件通道
+     * @param offset  起始位置
+     * @param length  长度
+     * @param buffer  读取缓冲区
+     * @param digest  摘要
+     * @throws IOException 如果读取文件时发生IO异常，则抛出此异常
+     */
+    private static void readInto(FileChannel channel, long offset, long length, ByteBuffer buffer, MessageDigest digest) throws IOException {
+        long position = offset;
+        long end = offset + length;
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int read = channel.read(buffer, position);
+            if (read < 0) {
+                throw new IOException("读取文件时遇到意外的结尾: " + position);
+            }
+            position += read;
+            digest.update(buffer.flip());
+        }
+    }
+
+    /**
+     * 创建SHA-256摘要。
+     *
+     * @return SHA-256摘要
+     */
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
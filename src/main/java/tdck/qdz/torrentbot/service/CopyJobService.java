@@ -0,0 +1,308 @@
+package tdck.qdz.torrentbot.service;
+
+import com.mongodb.client.result.UpdateResult;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.config.OrganizeConfig;
+import tdck.qdz.torrentbot.model.CopyJob;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 服务类，用于管理持久化的复制任务队列。
+ * 任务按优先级、种子大小和入队时间排序，领取任务时同时检查整理任务总数和每个源/目标设备上的任务数，
+ * 超出上限的任务留在队列中等待，避免大量种子同时完成时几十个复制流交错读写同一块硬盘。
+ * 失败的任务按执行次数指数退避后重试，达到最大执行次数后不再自动重试，避免持续失败的种子一直占用设备配额。
+ * 同时统计队列深度、完成数量和复制吞吐量，可通过 /stats 命令查看。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CopyJobService {
+    /**
+     * 每次领取任务时最多扫描的排队任务数量。
+     */
+    private static final int CLAIM_SCAN_LIMIT = 100;
+
+    /**
+     * 失败退避时间最多翻倍的次数，避免移位溢出。
+     */
+    private static final int MAX_BACKOFF_SHIFT = 10;
+
+    /**
+     * 注入的MongoTemplate对象，用于与MongoDB数据库进行交互。
+     */
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * 注入的文件整理配置对象。
+     */
+    private final OrganizeConfig organizeConfig;
+
+    /**
+     * 执行中的任务，键为任务ID。
+     */
+    private final Map<String, CopyJob> running = new LinkedHashMap<>();
+
+    /**
+     * 每个设备上执行中的任务数量。
+     */
+    private final Map<String, Integer> deviceJobs = new HashMap<>();
+
+    /**
+     * 已完成的任务数量。
+     */
+    private final AtomicLong completed = new AtomicLong();
+
+    /**
+     * 失败的任务数量。
+     */
+    private final AtomicLong failed = new AtomicLong();
+
+    /**
+     * 已完成任务的总大小（字节）。
+     */
+    private final AtomicLong totalBytes = new AtomicLong();
+
+    /**
+     * 已完成任务的总执行时间（纳秒）。
+     */
+    private final AtomicLong totalNanos = new AtomicLong();
+
+    /**
+     * 将种子加入整理队列。已在排队的任务只会提高优先级，执行中的任务不会重复入队。
+     * 自动整理时，失败的任务在退避时间过后才重新入队，达到最大执行次数后不再入队；
+     * 用户请求整理时立即入队，并重新计算执行次数。
+     *
+     * @param hash         种子的哈希值
+     * @param name         种子的名称
+     * @param size         种子的总大小（字节）
+     * @param priority     任务优先级
+     * @param sourceDevice 源文件所在的设备
+     * @param targetDevice 目标路径所在的设备
+     * @return 如果任务已入队则返回true，任务正在执行或等待重试时返回false
+     */
+    public boolean enqueue(String hash, String name, long size, int priority, String sourceDevice, String targetDevice) {
+        Criteria criteria = Criteria.where("id").is(hash).and("status").ne(CopyJob.Status.RUNNING);
+        Update update = new Update();
+        if (priority >= CopyJob.PRIORITY_USER) {
+            update.set("attempts", 0);
+        } else {
+            // 未失败的任务，或者退避时间已过且未达到最大执行次数的失败任务（$not $gt 同时匹配没有该字段的旧任务）
+            criteria.orOperator(
+                    Criteria.where("status").ne(CopyJob.Status.FAILED),
+                    Criteria.where("attempts").lt(organizeConfig.getMaxAttempts())
+                            .and("nextAttemptTime").not().gt(LocalDateTime.now()));
+        }
+        update
+                .set("name", name)
+                .set("size", size)
+                .set("status", CopyJob.Status.QUEUED)
+                .set("sourceDevice", sourceDevice)
+                .set("targetDevice", targetDevice)
+                .unset("error")
+                .unset("nextAttemptTime")
+                .max("priority", priority)
+                .setOnInsert("createTime", LocalDateTime.now())
+                .set("updateTime", LocalDateTime.now());
+        try {
+            mongoTemplate.upsert(new Query(criteria), update, CopyJob.class);
+            log.info("加入整理队列: {}，优先级: {}", name, priority);
+            return true;
+        } catch (DuplicateKeyException e) {
+            // 同ID的任务正在执行或等待重试，upsert尝试插入新文档时主键冲突
+            log.debug("整理任务正在执行或等待重试，不重复入队: {}", name);
+            return false;
+        }
+    }
+
+    /**
+     * 按优先级领取可以执行的任务，并将其标记为执行中。
+     * 整理任务总数已达上限时不领取；任务的源设备或目标设备已达上限时跳过该任务，继续查看后面的任务。
+     *
+     * @return 本次领取的任务
+     */
+    public synchronized List<CopyJob> claim() {
+        List<CopyJob> claimed = new ArrayList<>();
+        if (running.size() >= organizeConfig.getJobThreads()) {
+            return claimed;
+        }
+        Query query = new Query(Criteria.where("status").is(CopyJob.Status.QUEUED))
+                .with(Sort.by(Sort.Order.desc("priority"), Sort.Order.asc("size"), Sort.Order.asc("createTime")))
+                .limit(CLAIM_SCAN_LIMIT);
+        for (CopyJob job : mongoTemplate.find(query, CopyJob.class)) {
+            if (running.size() >= organizeConfig.getJobThreads()) {
+                break;
+            }
+            Set<String> devices = devices(job);
+            if (devices.stream().anyMatch(device -> deviceJobs.getOrDefault(device, 0) >= organizeConfig.getJobsPerDevice())) {
+                continue;
+            }
+            // 只领取仍在排队的任务
+            UpdateResult result = mongoTemplate.updateFirst(
+                    new Query(Criteria.where("id").is(job.getId()).and("status").is(CopyJob.Status.QUEUED)),
+                    new Update()
+                            .set("status", CopyJob.Status.RUNNING)
+                            .inc("attempts", 1)
+                            .set("updateTime", LocalDateTime.now()),
+                    CopyJob.class);
+            if (result.getModifiedCount() == 0) {
+                continue;
+            }
+            job.setAttempts(job.getAttempts() + 1);
+            devices.forEach(device -> deviceJobs.merge(device, 1, Integer::sum));
+            running.put(job.getId(), job);
+            claimed.add(job);
+        }
+        return claimed;
+    }
+
+    /**
+     * 记录任务执行成功，从队列中删除任务并释放设备配额。
+     *
+     * @param job   整理任务
+     * @param bytes 复制的字节数
+     * @param nanos 执行时间（纳秒）
+     */
+    public void completed(CopyJob job, long bytes, long nanos) {
+        mongoTemplate.remove(new Query(Criteria.where("id").is(job.getId())), CopyJob.class);
+        completed.incrementAndGet();
+        totalBytes.addAndGet(bytes);
+        totalNanos.addAndGet(nanos);
+        release(job);
+    }
+
+    /**
+     * 记录任务执行失败，保留任务记录并释放设备配额。
+     * 失败的任务等待 retry-backoff × 2^(执行次数-1) 分钟后由兜底检查重新入队，达到最大执行次数后不再自动入队。
+     *
+     * @param job   整理任务
+     * @param error 失败原因
+     */
+    public void failed(CopyJob job, String error) {
+        LocalDateTime now = LocalDateTime.now();
+        int shift = Math.min(Math.max(job.getAttempts() - 1, 0), MAX_BACKOFF_SHIFT);
+        LocalDateTime nextAttemptTime = now.plusMinutes((long) organizeConfig.getRetryBackoff() << shift);
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(job.getId())),
+                new Update()
+                        .set("status", CopyJob.Status.FAILED)
+                        .set("error", error)
+                        .set("nextAttemptTime", nextAttemptTime)
+                        .set("updateTime", now),
+                CopyJob.class);
+        if (job.getAttempts() >= organizeConfig.getMaxAttempts()) {
+            log.error("整理任务已失败{}次，不再自动重试: {}", job.getAttempts(), job.getName());
+        } else {
+            log.warn("整理任务第{}次失败，{}后重试: {}", job.getAttempts(), nextAttemptTime, job.getName());
+        }
+        failed.incrementAndGet();
+        release(job);
+    }
+
+    /**
+     * 将已领取但未能提交执行的任务放回队列，不计入执行次数，并释放设备配额。
+     *
+     * @param job 整理任务
+     */
+    public void requeue(CopyJob job) {
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(job.getId())),
+                new Update()
+                        .set("status", CopyJob.Status.QUEUED)
+                        .inc("attempts", -1)
+                        .set("updateTime", LocalDateTime.now()),
+                CopyJob.class);
+        release(job);
+    }
+
+    /**
+     * 将上次运行时中断的任务（仍为执行中状态）重新排队，应用启动时调用。
+     *
+     * @return 重新排队的任务数量
+     */
+    public long requeueInterrupted() {
+        UpdateResult result = mongoTemplate.updateMulti(
+                new Query(Criteria.where("status").is(CopyJob.Status.RUNNING)),
+                new Update()
+                        .set("status", CopyJob.Status.QUEUED)
+                        .set("updateTime", LocalDateTime.now()),
+                CopyJob.class);
+        if (result.getModifiedCount() > 0) {
+            log.info("重新排队中断的整理任务: {}个", result.getModifiedCount());
+        }
+        return result.getModifiedCount();
+    }
+
+    /**
+     * 释放任务占用的设备配额。
+     *
+     * @param job 整理任务
+     */
+    private synchronized void release(CopyJob job) {
+        if (running.remove(job.getId()) == null) {
+            return;
+        }
+        for (String device : devices(job)) {
+            deviceJobs.computeIfPresent(device, (k, count) -> count > 1 ? count - 1 : null);
+        }
+    }
+
+    /**
+     * 获取任务涉及的设备，源和目标在同一设备上时只占用一个配额。
+     *
+     * @param job 整理任务
+     * @return 设备集合
+     */
+    private static Set<String> devices(CopyJob job) {
+        Set<String> devices = new LinkedHashSet<>();
+        if (job.getSourceDevice() != null) {
+            devices.add(job.getSourceDevice());
+        }
+        if (job.getTargetDevice() != null) {
+            devices.add(job.getTargetDevice());
+        }
+        return devices;
+    }
+
+    /**
+     * 生成整理队列的统计信息。
+     *
+     * @return 可读的统计信息
+     */
+    public String format() {
+        long queued = mongoTemplate.count(new Query(Criteria.where("status").is(CopyJob.Status.QUEUED)), CopyJob.class);
+        long failedJobs = mongoTemplate.count(new Query(Criteria.where("status").is(CopyJob.Status.FAILED)), CopyJob.class);
+        long abandoned = mongoTemplate.count(new Query(Criteria.where("status").is(CopyJob.Status.FAILED)
+                .and("attempts").gte(organizeConfig.getMaxAttempts())), CopyJob.class);
+        long seconds = Math.max(1, TimeUnit.NANOSECONDS.toSeconds(totalNanos.get()));
+        StringBuilder sb = new StringBuilder("整理队列统计：\n");
+        synchronized (this) {
+            sb.append(String.format("排队：%d，执行中：%d/%d，待重试：%d，已放弃：%d\n",
+                    queued, running.size(), organizeConfig.getJobThreads(), failedJobs - abandoned, abandoned));
+            running.values().forEach(job -> sb.append("执行中：").append(job.getName()).append('\n'));
+            deviceJobs.forEach((device, count) -> sb.append(String.format("设备 %s：%d/%d\n",
+                    device, count, organizeConfig.getJobsPerDevice())));
+        }
+        sb.append(String.format("完成：%d，失败：%d，累计：%.2fGB，平均速度：%.1fMB/s\n",
+                completed.get(),
+                failed.get(),
+                totalBytes.get() / 1024.0 / 1024 / 1024,
+                totalBytes.get() / 1024.0 / 1024 / seconds));
+        return sb.toString();
+    }
+}
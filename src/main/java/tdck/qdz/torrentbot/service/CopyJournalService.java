@@ -0,0 +1,115 @@
+package tdck.qdz.torrentbot.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.data.mongodb.core.query.Update;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.model.CopyJournalEntry;
+
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+
+/**
+ * 服务类，用于读写复制日志。
+ * 复制引擎在每个分段落盘后记录进度，进程重启后据此跳过已完成的分段和文件。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class CopyJournalService {
+    /**
+     * 注入的MongoTemplate对象，用于与MongoDB数据库进行交互。
+     */
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * 生成日志条目的ID。
+     *
+     * @param key    日志键
+     * @param target 目标文件
+     * @return 日志条目的ID
+     */
+    private static String entryId(String key, Path target) {
+        return key + "|" + target;
+    }
+
+    /**
+     * 查询文件的复制日志。
+     *
+     * @param key    日志键
+     * @param target 目标文件
+     * @return 日志条目，如果不存在则返回null
+     */
+    public CopyJournalEntry find(String key, Path target) {
+        return mongoTemplate.findById(entryId(key, target), CopyJournalEntry.class);
+    }
+
+    /**
+     * 开始复制文件时创建新的日志条目，覆盖已有的条目。
+     *
+     * @param key            日志键
+     * @param source         源文件
+     * @param target         目标文件
+     * @param size           源文件大小
+     * @param sourceModified 源文件的最后修改时间
+     * @param rangeSize      分段大小
+     * @return 新的日志条目
+     */
+    public CopyJournalEntry start(String key, Path source, Path target, long size, long sourceModified, long rangeSize) {
+        CopyJournalEntry entry = new CopyJournalEntry();
+        entry.setId(entryId(key, target));
+        entry.setKey(key);
+        entry.setSource(source.toString());
+        entry.setTarget(target.toString());
+        entry.setSize(size);
+        entry.setSourceModified(sourceModified);
+        entry.setRangeSize(rangeSize);
+        entry.setUpdateTime(LocalDateTime.now());
+        mongoTemplate.save(entry);
+        return entry;
+    }
+
+    /**
+     * 记录一个分段复制完成。
+     *
+     * @param entryId  日志条目的ID
+     * @param offset   分段的起始位置
+     * @param checksum 分段的CRC32C，未开启校验时为null
+     */
+    public void rangeCompleted(String entryId, long offset, Long checksum) {
+        Update update = new Update()
+                .addToSet("completedRanges", offset)
+                .set("updateTime", LocalDateTime.now());
+        if (checksum != null) {
+            update.set("rangeChecksums." + offset, checksum);
+        }
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(entryId)), update, CopyJournalEntry.class);
+    }
+
+    /**
+     * 记录一个文件复制完成。
+     *
+     * @param entryId  日志条目的ID
+     * @param checksum 文件的校验和，未开启校验时为null
+     */
+    public void fileCompleted(String entryId, String checksum) {
+        Update update = new Update()
+                .set("completed", true)
+                .set("checksum", checksum)
+                .set("updateTime", LocalDateTime.now());
+        mongoTemplate.updateFirst(new Query(Criteria.where("id").is(entryId)), update, CopyJournalEntry.class);
+    }
+
+    /**
+     * 整理全部完成后删除日志。
+     *
+     * @param key 日志键
+     */
+    public void clear(String key) {
+        long deleted = mongoTemplate.remove(new Query(Criteria.where("key").is(key)), CopyJournalEntry.class).getDeletedCount();
+        log.debug("删除复制日志: key={}, 条目数={}", key, deleted);
+    }
+}
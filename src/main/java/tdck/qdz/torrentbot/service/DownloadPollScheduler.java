@@ -0,0 +1,221 @@
+package tdck.qdz.torrentbot.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.config.PollConfig;
+import tdck.qdz.torrentbot.event.AddTorrentEvent;
+import tdck.qdz.torrentbot.model.TorrentSnapshot;
+
+import java.util.Set;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 服务类，用于自适应地调度下载状态检查。
+ * 每次检查后根据跟踪中种子的状态计算下一次检查的时间：
+ * <ul>
+ *     <li>有种子正在下载时，按最短剩余时间的一半安排下一次检查，即将完成的种子在数秒内就能被发现；</li>
+ *     <li>种子都处于停滞、暂停或排队状态时，间隔逐次翻倍，直到最大间隔；</li>
+ *     <li>没有跟踪中的种子时停止轮询，添加新种子时重新开始。</li>
+ * </ul>
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DownloadPollScheduler {
+    /**
+     * 状态检查在后台任务调度服务中的任务名称。
+     */
+    private static final String JOB_NAME = "download-poll";
+
+    /**
+     * 表示种子正在传输数据的状态。
+     */
+    private static final Set<String> ACTIVE_STATES = Set.of("downloading", "forcedDL");
+
+    /**
+     * qBittorrent中表示剩余时间未知的值（100天）。
+     */
+    private static final long UNKNOWN_ETA = 8640000;
+
+    /**
+     * 注入的轮询配置对象。
+     */
+    private final PollConfig pollConfig;
+
+    /**
+     * 注入的种子任务服务对象，用于执行实际的状态检查。
+     */
+    private final TorrentTaskService torrentTaskService;
+
+    /**
+     * 注入的后台任务调度服务，状态检查在独立的 download-poll 任务线程中执行。
+     */
+    private final JobScheduler jobScheduler;
+
+    /**
+     * 每次检查重复使用的种子快照，只在 download-poll 任务线程中访问。
+     */
+    private final TorrentSnapshot snapshot = new TorrentSnapshot();
+
+    /**
+     * 已安排的下一次检查，为null表示轮询已停止。
+     */
+    private ScheduledFuture<?> next;
+
+    /**
+     * 上一次使用的检查间隔（毫秒），用于空闲时的指数退避。
+     */
+    private long lastDelay;
+
+    /**
+     * 检查执行期间是否收到了唤醒请求。检查开始时读取的任务列表可能不包含新任务，因此需要再检查一次。
+     */
+    private boolean wokenDuringPoll;
+
+    /**
+     * 应用启动完成后开始轮询，检查数据库中遗留的未完成任务。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void start() {
+        wake();
+    }
+
+    /**
+     * 添加新种子后唤醒轮询。延迟一个最小间隔，让任务先写入数据库、种子先加入qBittorrent。
+     *
+     * @param event 添加种子事件对象
+     */
+    @EventListener
+    public void handleAddTorrentEvent(AddTorrentEvent event) {
+        wake();
+    }
+
+    /**
+     * 在最小间隔后安排一次检查。如果已安排的检查更晚，则提前到最小间隔后执行。
+     */
+    public synchronized void wake() {
+        long delay = TimeUnit.SECONDS.toMillis(pollConfig.getMinInterval());
+        lastDelay = delay;
+        wokenDuringPoll = true;
+        if (next != null && next.getDelay(TimeUnit.MILLISECONDS) <= delay) {
+            return;
+        }
+        if (next != null) {
+            next.cancel(false);
+        }
+        next = jobScheduler.schedule(JOB_NAME, delay, TimeUnit.MILLISECONDS, this::poll);
+    }
+
+    /**
+     * 执行一次状态检查，并根据结果安排下一次检查。
+     *
+     * @return 跟踪中且尚未完成的种子数量
+     */
+    private int poll() {
+        synchronized (this) {
+            wokenDuringPoll = false;
+        }
+        long delay;
+        int tracked = 0;
+        try {
+            TorrentSnapshot torrents = torrentTaskService.checkDownloadStatus(snapshot);
+            tracked = downloading(torrents);
+            delay = nextDelay(torrents);
+        } catch (Exception e) {
+            log.error("检查下载状态失败: {}", e.getMessage());
+            delay = backoff();
+        }
+
+        synchronized (this) {
+            if (wokenDuringPoll) {
+                long min = TimeUnit.SECONDS.toMillis(pollConfig.getMinInterval());
+                delay = delay < 0 ? min : Math.min(delay, min);
+            }
+            if (delay < 0) {
+                log.debug("没有跟踪中的下载任务，停止轮询");
+                next = null;
+                return tracked;
+            }
+            lastDelay = delay;
+            next = jobScheduler.schedule(JOB_NAME, delay, TimeUnit.MILLISECONDS, this::poll);
+        }
+        log.debug("下一次下载状态检查: {}ms后", delay);
+        return tracked;
+    }
+
+    /**
+     * 根据跟踪中种子的状态计算下一次检查的间隔，并记录为空闲退避的基准。
+     * 连续空闲时每次调用的间隔翻倍；有种子正在下载时间隔按剩余时间重新计算，之后的退避从该间隔开始。
+     *
+     * @param torrents 跟踪中的种子，已下载完成的种子不参与计算
+     * @return 下一次检查的间隔（毫秒），-1表示停止轮询
+     */
+    synchronized long nextDelay(TorrentSnapshot torrents) {
+        if (downloading(torrents) == 0) {
+            return -1;
+        }
+        long minEta = Long.MAX_VALUE;
+        for (int row = 0; row < torrents.size(); row++) {
+            if (!torrents.isCompleted(row) && ACTIVE_STATES.contains(torrents.getState(row))
+                    && torrents.getEta(row) < UNKNOWN_ETA) {
+                minEta = Math.min(minEta, torrents.getEta(row));
+            }
+        }
+        // 在剩余时间过半时再检查一次，越接近完成检查越频繁
+        lastDelay = minEta == Long.MAX_VALUE ? backoff() : clamp(TimeUnit.SECONDS.toMillis(minEta) / 2);
+        return lastDelay;
+    }
+
+    /**
+     * 统计尚未下载完成的种子数量。
+     *
+     * @param torrents 跟踪中的种子
+     * @return 尚未下载完成的种子数量
+     */
+    private static int downloading(TorrentSnapshot torrents) {
+        int count = 0;
+        for (int row = 0; row < torrents.size(); row++) {
+            if (!torrents.isCompleted(row)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * 计算空闲时的退避间隔，每次翻倍。
+     *
+     * @return 退避后的间隔（毫秒）
+     */
+    private long backoff() {
+        return clamp(lastDelay * 2);
+    }
+
+    /**
+     * 将间隔限制在最小间隔和最大间隔之间。
+     *
+     * @param delay 间隔（毫秒）
+     * @return 限制后的间隔（毫秒）
+     */
+    private long clamp(long delay) {
+        long min = TimeUnit.SECONDS.toMillis(pollConfig.getMinInterval());
+        long max = TimeUnit.SECONDS.toMillis(pollConfig.getMaxInterval());
+        return Math.max(min, Math.min(max, delay));
+    }
+
+    /**
+     * 停止轮询。
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (next != null) {
+            next.cancel(false);
+            next = null;
+        }
+    }
+}
@@ -0,0 +1,292 @@
+package tdck.qdz.torrentbot.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.config.PollConfig;
+import tdck.qdz.torrentbot.config.QbConfig;
+import tdck.qdz.torrentbot.model.QbTorrent;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * 服务类，用于监听下载目录的文件变化，及时发现下载完成的种子。
+ * 文件写入结束（在静默时间内没有新的变化）后，根据文件路径找到对应的种子，只向qBittorrent查询这一个种子的状态；
+ * 种子下载完成时由 {@link TorrentTaskService} 发布完成事件，文件整理立即开始，不必等待下一次轮询。
+ * 该功能默认关闭，通过 poll.options.watch-enabled 开启；轮询和兜底整理检查仍然保留，用于处理监听遗漏的情况。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class DownloadWatchService {
+    /**
+     * 文件变化处理在后台任务调度服务中的任务名称。
+     */
+    private static final String JOB_NAME = "download-watch";
+
+    /**
+     * qBittorrent为未完成文件添加的后缀，文件下载完成后会被重命名为原文件名。
+     */
+    private static final String INCOMPLETE_SUFFIX = ".!qB";
+
+    /**
+     * 注入的轮询配置对象。
+     */
+    private final PollConfig pollConfig;
+
+    /**
+     * 注入的Qbittorrent配置对象，用于获取下载目录。
+     */
+    private final QbConfig qbConfig;
+
+    /**
+     * 注入的Qbittorrent服务对象，用于从内存种子表中根据路径查找种子。
+     */
+    private final QbService qbService;
+
+    /**
+     * 注入的种子任务服务对象，用于检查单个种子的下载状态。
+     */
+    private final TorrentTaskService torrentTaskService;
+
+    /**
+     * 注入的后台任务调度服务，文件变化在独立的 download-watch 任务线程中处理。
+     */
+    private final JobScheduler jobScheduler;
+
+    /**
+     * 发生变化的文件到最后一次变化时间（System.nanoTime）的映射。
+     */
+    private final Map<Path, Long> changedFiles = new ConcurrentHashMap<>();
+
+    /**
+     * 是否发生了事件溢出。溢出时部分变化已丢失，需要检查所有未结束的任务。
+     */
+    private final AtomicBoolean overflow = new AtomicBoolean();
+
+    /**
+     * 文件监听服务，为null表示未启动。
+     */
+    private WatchService watchService;
+
+    /**
+     * 接收文件事件的线程。
+     */
+    private Thread watchThread;
+
+    /**
+     * 应用启动完成后开始监听下载目录。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public synchronized void start() {
+        if (!pollConfig.isWatchEnabled() || watchService != null) {
+            return;
+        }
+        Path root = Paths.get(qbConfig.getDownloadPath()).toAbsolutePath().normalize();
+        if (!Files.isDirectory(root)) {
+            log.warn("下载目录不存在，无法监听文件变化: {}", root);
+            return;
+        }
+        try {
+            watchService = FileSystems.getDefault().newWatchService();
+            int directories = registerAll(root);
+            log.info("开始监听下载目录: {}，目录数: {}", root, directories);
+        } catch (IOException e) {
+            log.error("监听下载目录失败: {}", root, e);
+            close();
+            return;
+        }
+
+        watchThread = new Thread(this::watchLoop, "download-watcher");
+        watchThread.setDaemon(true);
+        watchThread.start();
+
+        long interval = Math.max(500, TimeUnit.SECONDS.toMillis(pollConfig.getWatchDebounce()) / 2);
+        jobScheduler.scheduleWithFixedDelay(JOB_NAME, interval, interval, TimeUnit.MILLISECONDS, this::flush);
+    }
+
+    /**
+     * 注册目录及其所有子目录。
+     *
+     * @param start 起始目录
+     * @return 注册的目录数量
+     * @throws IOException 如果遍历或注册目录时发生IO异常，则抛出此异常
+     */
+    private int registerAll(Path start) throws IOException {
+        int[] count = {0};
+        Files.walkFileTree(start, new SimpleFileVisitor<>() {
+            @Override
+            public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) throws IOException {
+                dir.register(watchService,
+                        StandardWatchEventKinds.ENTRY_CREATE,
+                        StandardWatchEventKinds.ENTRY_MODIFY);
+                count[0]++;
+                return FileVisitResult.CONTINUE;
+            }
+        });
+        return count[0];
+    }
+
+    /**
+     * 接收文件事件，记录发生变化的文件。新建的目录（例如多文件种子的根目录）会立即注册监听。
+     */
+    private void watchLoop() {
+        try {
+            while (!Thread.currentThread().isInterrupted()) {
+                WatchKey key = watchService.take();
+                Path dir = (Path) key.watchable();
+                for (WatchEvent<?> event : key.pollEvents()) {
+                    if (event.kind() == StandardWatchEventKinds.OVERFLOW) {
+                        overflow.set(true);
+                        continue;
+                    }
+                    Path path = dir.resolve((Path) event.context());
+                    if (event.kind() == StandardWatchEventKinds.ENTRY_CREATE && Files.isDirectory(path)) {
+                        try {
+                            registerAll(path);
+                        } catch (IOException e) {
+                            log.warn("注册新目录监听失败: {}", path, e);
+                        }
+                        continue;
+                    }
+                    changedFiles.put(completedPath(path), System.nanoTime());
+                }
+                key.reset();
+            }
+        } catch (InterruptedException | ClosedWatchServiceException e) {
+            log.debug("停止监听下载目录");
+        }
+    }
+
+    /**
+     * 处理静默时间内没有新变化的文件：找到文件所属的种子，逐个检查这些种子的下载状态。
+     *
+     * @return 检查的种子数量
+     * @throws IOException 如果查询qBittorrent时发生IO异常，则抛出此异常
+     */
+    private int flush() throws IOException {
+        if (overflow.getAndSet(false)) {
+            log.warn("文件事件溢出，检查所有未结束的任务");
+            changedFiles.clear();
+            torrentTaskService.checkDownloadStatus();
+            return 0;
+        }
+
+        long quietSince = System.nanoTime() - TimeUnit.SECONDS.toNanos(pollConfig.getWatchDebounce());
+        List<Path> settled = new ArrayList<>();
+        Iterator<Map.Entry<Path, Long>> it = changedFiles.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<Path, Long> entry = it.next();
+            if (entry.getValue() <= quietSince) {
+                settled.add(entry.getKey());
+                // 只在时间未被更新时移除，避免丢失刚刚发生的变化
+                changedFiles.remove(entry.getKey(), entry.getValue());
+            }
+        }
+        if (settled.isEmpty()) {
+            return 0;
+        }
+
+        Set<String> hashes = resolveHashes(settled, qbService.getTorrents());
+        for (String hash : hashes) {
+            log.debug("下载目录文件写入结束，检查种子状态: {}", hash);
+            torrentTaskService.checkDownloadStatus(hash);
+        }
+        return hashes.size();
+    }
+
+    /**
+     * 去掉未完成文件的后缀，得到文件下载完成后的路径。
+     *
+     * @param path 文件路径
+     * @return 下载完成后的文件路径
+     */
+    static Path completedPath(Path path) {
+        String name = path.getFileName().toString();
+        if (name.endsWith(INCOMPLETE_SUFFIX)) {
+            return path.resolveSibling(name.substring(0, name.length() - INCOMPLETE_SUFFIX.length()));
+        }
+        return path;
+    }
+
+    /**
+     * 根据文件路径找到所属种子的哈希值。文件位于种子内容路径之下（单文件种子即为内容路径本身）时视为属于该种子。
+     *
+     * @param paths    发生变化的文件路径
+     * @param torrents qBittorrent中的种子
+     * @return 文件所属种子的哈希值，按发现顺序排列
+     */
+    static Set<String> resolveHashes(Collection<Path> paths, Collection<QbTorrent> torrents) {
+        Set<String> hashes = new LinkedHashSet<>();
+        for (Path path : paths) {
+            for (QbTorrent torrent : torrents) {
+                Path content = contentPath(torrent);
+                if (content != null && path.startsWith(content)) {
+                    hashes.add(torrent.getHash());
+                    break;
+                }
+            }
+        }
+        return hashes;
+    }
+
+    /**
+     * 获取种子内容的路径。旧版本的qBittorrent没有 content_path 字段时，使用保存路径和种子名称拼接。
+     *
+     * @param torrent 种子信息
+     * @return 种子内容的路径，如果无法确定则返回null
+     */
+    private static Path contentPath(QbTorrent torrent) {
+        if (torrent.getContentPath() != null && !torrent.getContentPath().isEmpty()) {
+            return Paths.get(torrent.getContentPath()).toAbsolutePath().normalize();
+        }
+        if (torrent.getSavePath() == null || torrent.getName() == null) {
+            return null;
+        }
+        return Paths.get(torrent.getSavePath(), torrent.getName()).toAbsolutePath().normalize();
+    }
+
+    /**
+     * 停止监听下载目录。
+     */
+    @PreDestroy
+    public synchronized void close() {
+        if (watchThread != null) {
+            watchThread.interrupt();
+            watchThread = null;
+        }
+        if (watchService != null) {
+            try {
+                watchService.close();
+            } catch (IOException e) {
+                log.warn("关闭文件监听失败: {}", e.getMessage());
+            }
+            watchService = null;
+        }
+    }
+}
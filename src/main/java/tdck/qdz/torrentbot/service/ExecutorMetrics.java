@@ -0,0 +1,168 @@
+package tdck.qdz.torrentbot.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * 服务类，用于统计事件处理线程池的运行指标。
+ * 记录每个线程池的提交数、完成数、失败数、拒绝数、排队等待时间和执行时间，
+ * 并提供当前队列深度和活跃线程数，可通过 /stats 命令查看。
+ */
+@Slf4j
+@Service
+public class ExecutorMetrics {
+    /**
+     * 线程池名称到统计数据的映射，按名称排序展示。
+     */
+    private final Map<String, PoolStats> pools = new ConcurrentHashMap<>();
+
+    /**
+     * 单个线程池的统计数据。
+     */
+    private static final class PoolStats {
+        private final ThreadPoolTaskExecutor executor;
+        private final AtomicLong submitted = new AtomicLong();
+        private final AtomicLong finished = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong rejected = new AtomicLong();
+        private final AtomicLong totalWaitNanos = new AtomicLong();
+        private final AtomicLong totalRunNanos = new AtomicLong();
+        private final LongAccumulator maxWaitNanos = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator maxRunNanos = new LongAccumulator(Math::max, 0);
+
+        private PoolStats(ThreadPoolTaskExecutor executor) {
+            this.executor = executor;
+        }
+    }
+
+    /**
+     * 注册线程池，为其配置统计用的任务装饰器和拒绝策略。必须在线程池初始化之前调用。
+     *
+     * @param name     线程池名称
+     * @param executor 线程池
+     */
+    public void register(String name, ThreadPoolTaskExecutor executor) {
+        PoolStats stats = new PoolStats(executor);
+        pools.put(name, stats);
+        executor.setTaskDecorator(decorator(stats));
+        executor.setRejectedExecutionHandler(rejectPolicy(name, stats));
+    }
+
+    /**
+     * 创建统计排队时间和执行时间的任务装饰器。
+     *
+     * @param stats 统计数据
+     * @return 任务装饰器
+     */
+    private TaskDecorator decorator(PoolStats stats) {
+        return runnable -> {
+            stats.submitted.incrementAndGet();
+            long submitTime = System.nanoTime();
+            return () -> {
+                long startTime = System.nanoTime();
+                long wait = startTime - submitTime;
+                stats.totalWaitNanos.addAndGet(wait);
+                stats.maxWaitNanos.accumulate(wait);
+                try {
+                    runnable.run();
+                } catch (RuntimeException | Error e) {
+                    // 直接提交到线程池的任务抛出的异常；@Async方法的异常由 recordFailure 记录
+                    stats.failed.incrementAndGet();
+                    throw e;
+                } finally {
+                    stats.finished.incrementAndGet();
+                    long run = System.nanoTime() - startTime;
+                    stats.totalRunNanos.addAndGet(run);
+                    stats.maxRunNanos.accumulate(run);
+                }
+            };
+        };
+    }
+
+    /**
+     * 记录一次任务失败。@Async方法抛出的异常会被Spring捕获并交给 {@code AsyncUncaughtExceptionHandler}，
+     * 不会传到任务装饰器，因此由异常处理器在执行任务的线程中调用本方法，按线程名前缀找到所属的线程池。
+     *
+     * @param threadName 执行任务的线程名称
+     */
+    public void recordFailure(String threadName) {
+        pools.forEach((name, stats) -> {
+            if (threadName.startsWith(name + "-")) {
+                stats.failed.incrementAndGet();
+            }
+        });
+    }
+
+    /**
+     * 创建队列满时拒绝任务的拒绝策略，同时记录拒绝次数。
+     * 不在提交线程中执行任务：提交线程通常是Telegram的长轮询线程或后台任务线程，在其中执行下载、整理等任务会使其停顿。
+     * 被拒绝时 {@link ThreadPoolTaskExecutor} 抛出 {@link org.springframework.core.task.TaskRejectedException}，
+     * 由提交方处理（例如回复用户稍后重试，或留给兜底检查）。
+     *
+     * @param name  线程池名称
+     * @param stats 统计数据
+     * @return 拒绝策略
+     */
+    private RejectedExecutionHandler rejectPolicy(String name, PoolStats stats) {
+        return (runnable, executor) -> {
+            stats.rejected.incrementAndGet();
+            log.warn("事件线程池 {} 队列已满，拒绝任务", name);
+            throw new RejectedExecutionException("事件线程池 " + name + " 队列已满");
+        };
+    }
+
+    /**
+     * 生成所有线程池的统计信息。
+     *
+     * @return 可读的统计信息
+     */
+    public String format() {
+        if (pools.isEmpty()) {
+            return "暂无线程池统计信息。";
+        }
+        StringBuilder sb = new StringBuilder("事件线程池统计：\n");
+        pools.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    PoolStats stats = entry.getValue();
+                    long finished = stats.finished.get();
+                    long failed = Math.min(stats.failed.get(), finished);
+                    long divisor = Math.max(1, finished);
+                    sb.append(String.format("%s\n队列：%d，活跃线程：%d/%d\n提交：%d，完成：%d，失败：%d，拒绝：%d\n"
+                                    + "平均等待：%dms，最大等待：%dms\n平均执行：%dms，最大执行：%dms\n\n",
+                            entry.getKey(),
+                            stats.executor.getQueueSize(),
+                            stats.executor.getActiveCount(),
+                            stats.executor.getMaxPoolSize(),
+                            stats.submitted.get(),
+                            finished - failed,
+                            failed,
+                            stats.rejected.get(),
+                            toMillis(stats.totalWaitNanos.get() / divisor),
+                            toMillis(stats.maxWaitNanos.get()),
+                            toMillis(stats.totalRunNanos.get() / divisor),
+                            toMillis(stats.maxRunNanos.get())));
+                });
+        return sb.toString();
+    }
+
+    /**
+     * 将纳秒转换为毫秒。
+     *
+     * @param nanos 纳秒
+     * @return 毫秒
+     */
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+}
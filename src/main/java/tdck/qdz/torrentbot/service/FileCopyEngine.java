@@ -0,0 +1,708 @@
+package tdck.qdz.torrentbot.service;
+
+import com.sun.nio.file.ExtendedOpenOption;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.config.OrganizeConfig;
+import tdck.qdz.torrentbot.model.CopyJournalEntry;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.FileStore;
+import java.nio.file.Files;
+import java.nio.file.OpenOption;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32C;
+
+/**
+ * 服务类，用于并行复制文件。
+ * 使用 {@link FileChannel#transferTo} 复制数据，在支持的平台上由内核直接完成（sendfile/copy_file_range），
+ * 数据不经过Java堆。大文件按 organize.options.range-size 拆分成多个分段，由复制线程池并行复制；
+ * 每个目标设备同时进行的分段数量受 organize.options.per-device-concurrency 限制，
+ * 整理大量文件时速度取决于磁盘吞吐量，而不是单个线程。
+ * <p>
+ * 源和目标在同一文件系统时，可按 organize.options.mode 改为创建硬链接或reflink，
+ * 整理只需几毫秒且不占用额外空间，qBittorrent可以继续做种。
+ * <p>
+ * 指定日志键时，每个分段落盘后记录到复制日志，进程重启后再次整理同一批文件时只复制尚未完成的分段。
+ * <p>
+ * 开启 organize.options.verify 时，分段改为经由直接缓冲区复制，在同一缓冲区上计算CRC32C，
+ * 写入后立即从目标文件读回该分段（通常命中页缓存）再计算一次并比对，不一致时整理失败。
+ * 各分段的校验和合并为文件的校验和返回给调用方。
+ * <p>
+ * 开启 organize.options.direct-io 时，复制使用 {@link ExtendedOpenOption#DIRECT} 绕过页缓存，
+ * 整理大文件时不会把qBittorrent正在做种的热数据挤出页缓存。文件系统不支持直接I/O时自动退回普通方式。
+ */
+@Slf4j
+@Service
+public class FileCopyEngine {
+    /**
+     * 校验模式下复制缓冲区的大小。
+     */
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    /**
+     * 直接I/O模式下支持的最大块大小，复制线程的缓冲区多分配这些字节，用于截取按块大小对齐的部分。
+     */
+    private static final int MAX_ALIGNMENT = 64 * 1024;
+
+    /**
+     * 每次调用 {@link FileChannel#transferTo} 传输的最大长度，分段复制中途可以及时响应中止。
+     */
+    private static final long TRANSFER_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * 注入的整理配置对象。
+     */
+    private final OrganizeConfig organizeConfig;
+
+    /**
+     * 注入的复制日志服务。
+     */
+    private final CopyJournalService copyJournalService;
+
+    /**
+     * 复制线程池。
+     */
+    private final ExecutorService executor;
+
+    /**
+     * 目标设备到并发许可的映射。
+     */
+    private final Map<FileStore, Semaphore> devicePermits = new ConcurrentHashMap<>();
+
+    /**
+     * 不支持直接I/O的文件系统（例如tmpfs），首次失败后不再对其使用直接I/O，其他文件系统不受影响。
+     */
+    private final Set<FileStore> directIoUnsupported = ConcurrentHashMap.newKeySet();
+
+    /**
+     * 校验模式和直接I/O模式下每个复制线程使用的直接缓冲区。
+     */
+    private static final ThreadLocal<ByteBuffer> BUFFERS =
+            ThreadLocal.withInitial(() -> ByteBuffer.allocateDirect(BUFFER_SIZE + MAX_ALIGNMENT));
+
+    /**
+     * 一个复制请求。
+     *
+     * @param source 源文件
+     * @param target 目标文件
+     */
+    public record CopyRequest(Path source, Path target) {
+    }
+
+    /**
+     * 整理结果。
+     *
+     * @param bytes     处理的总字节数
+     * @param checksums 目标文件到校验和的映射，只包含开启校验时复制的文件
+     */
+    public record CopyResult(long bytes, Map<Path, String> checksums) {
+    }
+
+    /**
+     * 一个正在复制的文件。
+     *
+     * @param request      复制请求
+     * @param sourceDevice 源设备
+     * @param size         文件大小
+     * @param journalId    复制日志条目的ID，不记录日志时为null
+     * @param checksums    各分段的CRC32C，按分段顺序排列，不校验时为null
+     */
+    private record FileProgress(CopyRequest request, FileStore sourceDevice, long size, String journalId, long[] checksums) {
+    }
+
+    /**
+     * 一个待复制的分段。
+     *
+     * @param file   所属的文件
+     * @param device 目标设备
+     * @param index  分段序号
+     * @param offset 分段在文件中的起始位置
+     * @param length 分段长度
+     * @param abort  本次整理的中止标志，任意分段失败后置位，其余分段不再继续复制
+     */
+    private record Range(FileProgress file, FileStore device, int index, long offset, long length, AtomicBoolean abort) {
+    }
+
+    public FileCopyEngine(OrganizeConfig organizeConfig, CopyJournalService copyJournalService) {
+        this.organizeConfig = organizeConfig;
+        this.copyJournalService = copyJournalService;
+        AtomicInteger counter = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(Math.max(1, organizeConfig.getCopyThreads()), r -> {
+            Thread thread = new Thread(r, "file-copy-" + counter.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * 整理一组文件，不记录复制日志。
+     *
+     * @param requests 复制请求
+     * @return 整理结果
+     * @throws IOException 如果任意文件处理失败，则抛出此异常
+     * @see #copy(String, List)
+     */
+    public CopyResult copy(List<CopyRequest> requests) throws IOException {
+        return copy(null, requests);
+    }
+
+    /**
+     * 整理一组文件，所有文件处理完成后返回。目标文件已存在时先删除再重新创建，不会写入与其共用数据的其他文件；
+     * 目标已经是源文件的硬链接时直接跳过。
+     * 按整理方式先尝试硬链接或reflink，无法链接的文件再并行复制。
+     * 指定日志键时，如果复制日志与源文件和目标文件一致，则跳过已完成的文件和分段。
+     *
+     * @param journalKey 复制日志的键，通常是种子的哈希值，为null时不记录日志
+     * @param requests   复制请求
+     * @return 整理结果
+     * @throws IOException 如果任意文件处理失败（包括校验失败），则抛出此异常
+     */
+    public CopyResult copy(String journalKey, List<CopyRequest> requests) throws IOException {
+        long rangeSize = Math.max(1, organizeConfig.getRangeSize()) * 1024L * 1024L;
+        boolean verify = organizeConfig.isVerify();
+        List<Range> ranges = new ArrayList<>();
+        List<FileProgress> files = new ArrayList<>();
+        Map<Path, String> checksums = new HashMap<>();
+        AtomicBoolean abort = new AtomicBoolean();
+        long total = 0;
+        long copiedBytes = 0;
+        int copied = 0;
+        int linked = 0;
+        int resumed = 0;
+        for (CopyRequest request : requests) {
+            long size = Files.size(request.source());
+            long modified = Files.getLastModifiedTime(request.source()).toMillis();
+            total += size;
+            Files.createDirectories(request.target().getParent());
+            // 目标已经是源文件本身（例如之前以硬链接整理过），无论整理方式如何都不能写入目标，否则会覆盖做种数据
+            if (Files.exists(request.target()) && Files.isSameFile(request.source(), request.target())) {
+                linked++;
+                continue;
+            }
+
+            CopyJournalEntry entry = journalKey == null ? null : copyJournalService.find(journalKey, request.target());
+            if (entry != null && isResumable(entry, request, size, modified, rangeSize)) {
+                resumed++;
+                if (entry.isCompleted() && (!verify || entry.getChecksum() != null)) {
+                    if (entry.getChecksum() != null) {
+                        checksums.put(request.target(), entry.getChecksum());
+                    }
+                    continue;
+                }
+            } else {
+                entry = null;
+                if (link(request)) {
+                    linked++;
+                    continue;
+                }
+                // 先删除已有的目标文件再创建新文件：目标可能是其他已整理文件的硬链接，原地截断会破坏那个文件
+                Files.deleteIfExists(request.target());
+                // 预先创建目标文件并设置长度，各分段按位置写入
+                try (FileChannel target = FileChannel.open(request.target(),
+                        StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                    if (size > 0) {
+                        target.write(ByteBuffer.allocate(1), size - 1);
+                    }
+                }
+                if (journalKey != null) {
+                    entry = copyJournalService.start(journalKey, request.source(), request.target(), size, modified, rangeSize);
+                }
+            }
+            copied++;
+
+            FileStore device = Files.getFileStore(request.target());
+            int rangeCount = (int) ((size + rangeSize - 1) / rangeSize);
+            FileProgress file = new FileProgress(request, Files.getFileStore(request.source()), size,
+                    entry == null ? null : entry.getId(),
+                    verify ? new long[rangeCount] : null);
+            for (int index = 0; index < rangeCount; index++) {
+                long offset = index * rangeSize;
+                // 日志中已完成的分段直接沿用其校验和；开启校验但日志中没有校验和的分段需要重新复制
+                Long checksum = entry == null ? null : entry.getRangeChecksums().get(String.valueOf(offset));
+                if (entry != null && entry.getCompletedRanges().contains(offset) && (!verify || checksum != null)) {
+                    if (verify) {
+                        file.checksums()[index] = checksum;
+                    }
+                    continue;
+                }
+                long length = Math.min(rangeSize, size - offset);
+                ranges.add(new Range(file, device, index, offset, length, abort));
+                copiedBytes += length;
+            }
+            files.add(file);
+        }
+
+        long start = System.nanoTime();
+        // 记录第一个失败的分段并置位中止标志：排队中的分段不再开始，复制中的分段在下一个数据块前退出
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        List<CompletableFuture<Void>> futures = new ArrayList<>(ranges.size());
+        for (Range range : ranges) {
+            futures.add(CompletableFuture.runAsync(() -> copyRange(range), executor).whenComplete((result, e) -> {
+                if (e != null && failure.compareAndSet(null, e instanceof CompletionException ? e.getCause() : e)) {
+                    abort.set(true);
+                }
+            }));
+        }
+        try {
+            // 等待所有分段结束（包括中止的分段），返回后不会再有线程写入目标文件
+            CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).join();
+        } catch (CompletionException e) {
+            failure.compareAndSet(null, e.getCause());
+        }
+        Throwable cause = failure.get();
+        if (cause instanceof UncheckedIOException io) {
+            throw io.getCause();
+        } else if (cause != null) {
+            throw new IOException("复制文件失败", cause);
+        }
+
+        // 所有分段完成后合并文件校验和，并标记日志中的文件已完成
+        for (FileProgress file : files) {
+            String checksum = file.checksums() == null ? null : combineChecksums(file.checksums(), rangeSize);
+            if (checksum != null) {
+                checksums.put(file.request().target(), checksum);
+            }
+            if (file.journalId() != null) {
+                copyJournalService.fileCompleted(file.journalId(), checksum);
+            }
+        }
+
+        // 速度只按本次实际复制的字节计算，不包括链接的文件和日志中已完成的分段
+        long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+        log.info("整理完成: 链接{}个文件，复制{}个文件（{}个分段，其中{}个文件从日志恢复），共{}MB，复制{}MB，{}MB/s",
+                linked, copied, ranges.size(), resumed, total >> 20, copiedBytes >> 20, (copiedBytes >> 20) * 1000 / millis);
+        return new CopyResult(total, checksums);
+    }
+
+    /**
+     * 将各分段的CRC32C合并为文件的校验和。
+     * 只有一个分段时即为整个文件的CRC32C；有多个分段时为各分段CRC32C（按顺序、大端8字节）的CRC32C。
+     * 校验和中包含分段大小，不同分段大小下得到的校验和不可比较。
+     *
+     * @param rangeChecksums 各分段的CRC32C
+     * @param rangeSize      分段大小
+     * @return 文件的校验和，格式为 crc32c-分段大小MB:8位十六进制
+     */
+    static String combineChecksums(long[] rangeChecksums, long rangeSize) {
+        long value;
+        if (rangeChecksums.length == 1) {
+            value = rangeChecksums[0];
+        } else {
+            CRC32C crc = new CRC32C();
+            ByteBuffer buffer = ByteBuffer.allocate(Long.BYTES);
+            for (long checksum : rangeChecksums) {
+                buffer.clear();
+                buffer.putLong(checksum).flip();
+                crc.update(buffer);
+            }
+            value = crc.getValue();
+        }
+        return String.format("crc32c-%dm:%08x", rangeSize >> 20, value);
+    }
+
+    /**
+     * 判断复制日志是否仍然有效：源文件未变化、分段大小未变化，且目标文件存在且长度正确。
+     *
+     * @param entry     复制日志条目
+     * @param request   复制请求
+     * @param size      当前源文件大小
+     * @param modified  当前源文件的最后修改时间
+     * @param rangeSize 当前分段大小
+     * @return 如果可以从日志恢复则返回true
+     * @throws IOException 如果读取目标文件信息时发生IO异常，则抛出此异常
+     */
+    private boolean isResumable(CopyJournalEntry entry, CopyRequest request, long size, long modified, long rangeSize)
+            throws IOException {
+        return entry.getSize() == size
+                && entry.getSourceModified() == modified
+                && entry.getRangeSize() == rangeSize
+                && Files.exists(request.target())
+                && Files.size(request.target()) == size;
+    }
+
+    /**
+     * 按整理方式尝试以硬链接或reflink代替复制。
+     *
+     * @param request 复制请求
+     * @return 如果已成功链接则返回true，需要复制时返回false
+     * @throws IOException 如果检查文件系统时发生IO异常，则抛出此异常
+     */
+    private boolean link(CopyRequest request) throws IOException {
+        OrganizeConfig.Mode mode = organizeConfig.getMode();
+        if (mode == OrganizeConfig.Mode.COPY) {
+            return false;
+        }
+        // 硬链接和reflink都要求源和目标在同一文件系统
+        if (!Files.getFileStore(request.source()).equals(Files.getFileStore(request.target().getParent()))) {
+            if (mode != OrganizeConfig.Mode.AUTO) {
+                log.warn("源和目标不在同一文件系统，改为复制: {}", request.source());
+            }
+            return false;
+        }
+        boolean tryHardLink = mode == OrganizeConfig.Mode.AUTO || mode == OrganizeConfig.Mode.HARDLINK;
+        boolean tryReflink = mode == OrganizeConfig.Mode.AUTO || mode == OrganizeConfig.Mode.REFLINK;
+        if (tryHardLink && hardLink(request)) {
+            return true;
+        }
+        if (tryReflink && reflink(request)) {
+            return true;
+        }
+        log.debug("无法链接，改为复制: {}", request.source());
+        return false;
+    }
+
+    /**
+     * 创建硬链接。
+     *
+     * @param request 复制请求
+     * @return 如果创建成功则返回true
+     */
+    private boolean hardLink(CopyRequest request) {
+        try {
+            Files.deleteIfExists(request.target());
+            Files.createLink(request.target(), request.source());
+            log.debug("创建硬链接: {} -> {}", request.source(), request.target());
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            log.debug("创建硬链接失败: {}, {}", request.source(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 创建reflink（写时复制克隆）。JDK没有对应的接口，因此调用 cp --reflink=always。
+     * cp会原地截断已存在的目标文件，因此先删除目标文件。
+     *
+     * @param request 复制请求
+     * @return 如果创建成功则返回true
+     */
+    private boolean reflink(CopyRequest request) {
+        try {
+            Files.deleteIfExists(request.target());
+            Process process = new ProcessBuilder("cp", "--reflink=always", "-f",
+                    request.source().toString(), request.target().toString())
+                    .redirectErrorStream(true)
+                    .redirectOutput(ProcessBuilder.Redirect.DISCARD)
+                    .start();
+            if (process.waitFor() == 0) {
+                log.debug("创建reflink: {} -> {}", request.source(), request.target());
+                return true;
+            }
+            log.debug("创建reflink失败: {}, 退出码: {}", request.source(), process.exitValue());
+        } catch (IOException e) {
+            log.debug("创建reflink失败: {}, {}", request.source(), e.getMessage());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return false;
+    }
+
+    /**
+     * 复制单个分段。每个分段使用独立的文件通道，可以与同一文件的其他分段并行复制。
+     *
+     * @param range 要复制的分段
+     */
+    private void copyRange(Range range) {
+        CopyRequest request = range.file().request();
+        Semaphore permits = devicePermits.computeIfAbsent(range.device(),
+                device -> new Semaphore(Math.max(1, organizeConfig.getPerDeviceConcurrency())));
+        checkAbort(range);
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new UncheckedIOException(new IOException("复制被中断: " + request.source()));
+        }
+        FileStore sourceDevice = range.file().sourceDevice();
+        boolean direct = organizeConfig.isDirectIo()
+                && !directIoUnsupported.contains(sourceDevice) && !directIoUnsupported.contains(range.device());
+        boolean retry = false;
+        try (FileChannel source = open(request.source(), sourceDevice, direct, StandardOpenOption.READ);
+             FileChannel target = open(request.target(), range.device(), direct, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            Long checksum = null;
+            if (direct) {
+                checksum = copyDirect(source, target, range, request);
+            } else if (range.file().checksums() == null) {
+                transfer(source, target, range, request);
+            } else {
+                checksum = copyAndVerify(source, target, range, request);
+            }
+            if (checksum != null) {
+                range.file().checksums()[range.index()] = checksum;
+            }
+            if (range.file().journalId() != null) {
+                // 分段落盘后才记录到日志，保证重启后跳过的分段确实已写入
+                target.force(false);
+                copyJournalService.rangeCompleted(range.file().journalId(), range.offset(), checksum);
+            }
+        } catch (DirectIoUnsupportedException e) {
+            // 文件系统不支持直接I/O（例如tmpfs），之后该文件系统上的文件改用普通方式
+            log.warn("文件系统 {} 不支持直接I/O，改用普通方式复制: {}", e.device, e.getMessage());
+            directIoUnsupported.add(e.device);
+            retry = true;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        } finally {
+            permits.release();
+        }
+        if (retry) {
+            copyRange(range);
+        }
+    }
+
+    /**
+     * 检查本次整理是否已因其他分段失败而中止。
+     *
+     * @param range 要复制的分段
+     * @throws UncheckedIOException 如果已中止，则抛出此异常
+     */
+    private static void checkAbort(Range range) {
+        if (range.abort().get()) {
+            throw new UncheckedIOException(new IOException("其他分段复制失败，已中止: " + range.file().request().source()));
+        }
+    }
+
+    /**
+     * 打开文件通道，直接I/O模式下附加 {@link ExtendedOpenOption#DIRECT}。
+     *
+     * @param path    文件路径
+     * @param device  文件所在的设备
+     * @param direct  是否使用直接I/O
+     * @param options 打开选项
+     * @return 文件通道
+     * @throws IOException 如果打开文件失败，则抛出此异常；文件系统不支持直接I/O时抛出 {@link DirectIoUnsupportedException}
+     */
+    private static FileChannel open(Path path, FileStore device, boolean direct, OpenOption... options) throws IOException {
+        if (!direct) {
+            return FileChannel.open(path, options);
+        }
+        Set<OpenOption> directOptions = new HashSet<>(Arrays.asList(options));
+        directOptions.add(ExtendedOpenOption.DIRECT);
+        try {
+            return FileChannel.open(path, directOptions);
+        } catch (UnsupportedOperationException e) {
+            throw new DirectIoUnsupportedException(device, path);
+        } catch (IOException e) {
+            // Linux上不支持O_DIRECT的文件系统在打开时返回EINVAL，但异常中只有随语言环境和JDK版本变化的错误信息；
+            // 因此不带DIRECT再打开一次，能正常打开说明是文件系统不支持直接I/O，否则按原异常处理
+            if (!canOpen(path, options)) {
+                throw e;
+            }
+            throw new DirectIoUnsupportedException(device, path);
+        }
+    }
+
+    /**
+     * 判断文件能否以普通方式打开。
+     *
+     * @param path    文件路径
+     * @param options 打开选项
+     * @return 如果能打开则返回true
+     */
+    private static boolean canOpen(Path path, OpenOption... options) {
+        try (FileChannel ignored = FileChannel.open(path, options)) {
+            return true;
+        } catch (IOException e) {
+            return false;
+        }
+    }
+
+    /**
+     * 表示文件系统不支持直接I/O的异常。
+     */
+    private static final class DirectIoUnsupportedException extends IOException {
+        /**
+         * 不支持直接I/O的设备。
+         */
+        private final FileStore device;
+
+        private DirectIoUnsupportedException(FileStore device, Path path) {
+            super(path.toString());
+            this.device = device;
+        }
+    }
+
+    /**
+     * 使用 {@link FileChannel#transferTo} 复制分段，数据不经过Java堆。
+     *
+     * @param source  源文件通道
+     * @param target  目标文件通道
+     * @param range   要复制的分段
+     * @param request 所属的复制请求
+     * @throws IOException 如果复制过程中发生IO异常，则抛出此异常
+     */
+    private void transfer(FileChannel source, FileChannel target, Range range, CopyRequest request) throws IOException {
+        long position = range.offset();
+        long end = range.offset() + range.length();
+        target.position(position);
+        // transferTo不保证一次传输完整个分段
+        while (position < end) {
+            checkAbort(range);
+            long transferred = source.transferTo(position, Math.min(TRANSFER_SIZE, end - position), target);
+            if (transferred <= 0) {
+                throw new IOException("源文件在复制过程中被截断: " + request.source());
+            }
+            position += transferred;
+        }
+    }
+
+    /**
+     * 经由直接缓冲区复制分段，在同一缓冲区上计算CRC32C，写入后从目标文件读回该分段校验。
+     *
+     * @param source  源文件通道
+     * @param target  目标文件通道
+     * @param range   要复制的分段
+     * @param request 所属的复制请求
+     * @return 分段的CRC32C
+     * @throws IOException 如果复制过程中发生IO异常或校验失败，则抛出此异常
+     */
+    private long copyAndVerify(FileChannel source, FileChannel target, Range range, CopyRequest request) throws IOException {
+        ByteBuffer buffer = BUFFERS.get();
+        CRC32C sourceCrc = new CRC32C();
+        long position = range.offset();
+        long end = range.offset() + range.length();
+        while (position < end) {
+            checkAbort(range);
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int read = source.read(buffer, position);
+            if (read <= 0) {
+                throw new IOException("源文件在复制过程中被截断: " + request.source());
+            }
+            buffer.flip();
+            sourceCrc.update(buffer);
+            buffer.rewind();
+            while (buffer.hasRemaining()) {
+                position += target.write(buffer, position);
+            }
+        }
+
+        CRC32C targetCrc = new CRC32C();
+        position = range.offset();
+        while (position < end) {
+            buffer.clear().limit((int) Math.min(buffer.capacity(), end - position));
+            int read = target.read(buffer, position);
+            if (read <= 0) {
+                throw new IOException("目标文件长度不正确: " + request.target());
+            }
+            buffer.flip();
+            targetCrc.update(buffer);
+            position += read;
+        }
+        if (sourceCrc.getValue() != targetCrc.getValue()) {
+            throw new IOException(String.format("校验失败: %s，分段起始位置: %d，源: %08x，目标: %08x",
+                    request.target(), range.offset(), sourceCrc.getValue(), targetCrc.getValue()));
+        }
+        return sourceCrc.getValue();
+    }
+
+    /**
+     * 使用直接I/O复制分段。直接I/O要求缓冲区地址、读写位置和长度都按块大小对齐，
+     * 分段起始位置是1MB的整数倍，文件末尾不足一个块的部分按整块写入，之后再截断到文件的实际长度。
+     * 开启校验时在同一缓冲区上计算CRC32C，并同样以直接I/O从磁盘读回目标分段比对。
+     *
+     * @param source  源文件通道（直接I/O）
+     * @param target  目标文件通道（直接I/O）
+     * @param range   要复制的分段
+     * @param request 所属的复制请求
+     * @return 分段的CRC32C，不校验时返回null
+     * @throws IOException 如果复制过程中发生IO异常或校验失败，则抛出此异常
+     */
+    private Long copyDirect(FileChannel source, FileChannel target, Range range, CopyRequest request) throws IOException {
+        int alignment = (int) Math.max(range.file().sourceDevice().getBlockSize(), range.device().getBlockSize());
+        // 从复制线程的缓冲区中截取对齐的部分；块大小超出预留时（很少见）才单独分配
+        ByteBuffer buffer = alignment <= MAX_ALIGNMENT
+                ? BUFFERS.get().clear().alignedSlice(alignment)
+                : ByteBuffer.allocateDirect(BUFFER_SIZE + alignment).alignedSlice(alignment);
+        boolean verify = range.file().checksums() != null;
+        CRC32C sourceCrc = verify ? new CRC32C() : null;
+        long position = range.offset();
+        long end = range.offset() + range.length();
+        while (position < end) {
+            checkAbort(range);
+            buffer.clear().limit(alignUp((int) Math.min(buffer.capacity(), end - position), alignment));
+            int read = source.read(buffer, position);
+            // 只有文件末尾允许读到不足一个块的数据
+            if (read <= 0 || (read % alignment != 0 && position + read < end)) {
+                throw new IOException("源文件在复制过程中被截断: " + request.source());
+            }
+            int length = (int) Math.min(read, end - position);
+            buffer.flip();
+            if (verify) {
+                sourceCrc.update(buffer.limit(length));
+                buffer.rewind();
+            }
+            buffer.limit(alignUp(length, alignment));
+            long written = position;
+            while (buffer.hasRemaining()) {
+                written += target.write(buffer, written);
+            }
+            position += length;
+        }
+        if (end == range.file().size()) {
+            target.truncate(end);
+        }
+        if (!verify) {
+            return null;
+        }
+
+        CRC32C targetCrc = new CRC32C();
+        position = range.offset();
+        while (position < end) {
+            buffer.clear().limit(alignUp((int) Math.min(buffer.capacity(), end - position), alignment));
+            int read = target.read(buffer, position);
+            if (read <= 0) {
+                throw new IOException("目标文件长度不正确: " + request.target());
+            }
+            int length = (int) Math.min(read, end - position);
+            buffer.flip().limit(length);
+            targetCrc.update(buffer);
+            position += length;
+        }
+        if (sourceCrc.getValue() != targetCrc.getValue()) {
+            throw new IOException(String.format("校验失败: %s，分段起始位置: %d，源: %08x，目标: %08x",
+                    request.target(), range.offset(), sourceCrc.getValue(), targetCrc.getValue()));
+        }
+        return sourceCrc.getValue();
+    }
+
+    /**
+     * 将长度向上对齐到块大小的整数倍。
+     *
+     * @param length    长度
+     * @param alignment 块大小
+     * @return 对齐后的长度
+     */
+    private static int alignUp(int length, int alignment) {
+        return (length + alignment - 1) / alignment * alignment;
+    }
+
+    /**
+     * 关闭复制线程池。
+     */
+    @PreDestroy
+    public void close() {
+        executor.shutdownNow();
+    }
+}
@@ -2,20 +2,33 @@ package tdck.qdz.torrentbot.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
 import org.springframework.context.annotation.Lazy;
 import org.springframework.context.event.EventListener;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.annotation.Async;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Service;
 import tdck.qdz.torrentbot.config.AlistConfig;
+import tdck.qdz.torrentbot.config.AsyncConfig;
 import tdck.qdz.torrentbot.config.BotConfig;
+import tdck.qdz.torrentbot.config.OrganizeConfig;
+import tdck.qdz.torrentbot.config.PollConfig;
 import tdck.qdz.torrentbot.event.DownloadCompleteEvent;
+import tdck.qdz.torrentbot.event.OrganizeRequestEvent;
+import tdck.qdz.torrentbot.event.TorrentCompletedEvent;
+import tdck.qdz.torrentbot.model.CopyJob;
+import tdck.qdz.torrentbot.model.FileDigest;
+import tdck.qdz.torrentbot.model.ManifestFile;
 import tdck.qdz.torrentbot.model.QbTorrent;
+import tdck.qdz.torrentbot.model.QbTorrentFile;
 import tdck.qdz.torrentbot.model.TorrentTask;
 
 import java.io.IOException;
 import java.nio.file.*;
-import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -33,11 +46,17 @@ public class FileCopyService {
     private final AlistConfig alistConfig;
     private final BotConfig botConfig;
     private final NotificationService notificationService;
-
-    /**
-     * 大文件的阈值大小（1GB），超过此大小的文件将被视为大文件并单独处理。
-     */
-    private static final long LARGE_FILE_SIZE = 1024 * 1024 * 1024; // 1GB
+    private final PollConfig pollConfig;
+    private final JobScheduler jobScheduler;
+    private final FileCopyEngine fileCopyEngine;
+    private final CopyJournalService copyJournalService;
+    private final CopyJobService copyJobService;
+    private final ThreadPoolTaskExecutor organizeExecutor;
+    private final AlistService alistService;
+    private final ContentIndexService contentIndexService;
+    private final OrganizeConfig organizeConfig;
+    private final FileSelectionService fileSelectionService;
+    private final TorrentManifestService torrentManifestService;
 
     /**
      * 正则表达式模式，用于从消息中提取文件名。
@@ -47,9 +66,11 @@ public class FileCopyService {
 
     /**
      * 监听下载完成事件，解析文件名并执行文件复制操作。
+     * 在下载完成事件线程池中异步执行，大文件复制不会阻塞Telegram的长轮询线程。
      *
      * @param event 下载完成事件对象，包含聊天ID和下载完成的消息内容
      */
+    @Async(AsyncConfig.DOWNLOAD_COMPLETE_EXECUTOR)
     @EventListener
     public void handleDownloadComplete(DownloadCompleteEvent event) {
         try {
@@ -109,11 +130,8 @@ public class FileCopyService {
             throw new IOException("源文件不存在: " + sourcePath);
         }
 
-        // 确保目标目录存在
-        Files.createDirectories(target.getParent());
-
-        // 复制文件
-        Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
+        // 复制文件（复制引擎会创建目标目录）
+        fileCopyEngine.copy(List.of(new FileCopyEngine.CopyRequest(source, target)));
         log.info("文件复制完成: {} -> {}", sourcePath, targetPath);
     }
 
@@ -129,54 +147,282 @@ public class FileCopyService {
     }
 
     /**
-     * 定期检查下载任务，并对符合条件的任务执行文件复制操作。
-     * 每分钟执行一次，检查所有处于"uploading"或"pausedUP"状态的任务。
+     * 监听种子下载完成事件，将该种子加入整理队列。
+     *
+     * @param event 种子下载完成事件对象，包含种子的哈希值
      */
-    @Scheduled(fixedDelay = 1, timeUnit = TimeUnit.MINUTES)
-    public void checkAndCopyFiles() {
+    @Async(AsyncConfig.DOWNLOAD_COMPLETE_EXECUTOR)
+    @EventListener
+    public void handleTorrentCompleted(TorrentCompletedEvent event) {
         try {
-            List<QbTorrent> torrents = qbService.getTorrents();
-            for (QbTorrent torrent : torrents) {
-                if (torrent.getState().equals("uploading") || torrent.getState().equals("pausedUP")) {
-                    TorrentTask task = torrentTaskService.getTaskByHash(torrent.getHash());
-                    if (task != null && task.getStatus() != TorrentTask.TaskStatus.ORGANIZED) {
-                        copyFiles(torrent, task);
-                    }
+            // 种子信息来自增量同步的内存种子表，不单独请求 /torrents/info
+            QbTorrent torrent = qbService.getCachedTorrent(event.getHash());
+            TorrentTask task = torrentTaskService.getTaskByHash(event.getHash());
+            if (torrent == null || task == null || task.getStatus() == TorrentTask.TaskStatus.ORGANIZED) {
+                return;
+            }
+            enqueue(torrent, CopyJob.PRIORITY_AUTO);
+            dispatch();
+        } catch (IOException e) {
+            log.error("整理下载完成的种子失败: {}", event.getHash(), e);
+        }
+    }
+
+    /**
+     * 监听用户的整理请求，将名称包含关键字的已完成任务以高优先级加入整理队列；没有关键字时返回队列状态。
+     *
+     * @param event 整理请求事件对象，包含聊天ID和任务名称关键字
+     */
+    @Async(AsyncConfig.DOWNLOAD_COMPLETE_EXECUTOR)
+    @EventListener
+    public void handleOrganizeRequest(OrganizeRequestEvent event) {
+        String keyword = event.getKeyword();
+        if (keyword == null || keyword.isBlank()) {
+            sendNotification(event.getChatId(), copyJobService.format());
+            return;
+        }
+        try {
+            List<TorrentTask> tasks = torrentTaskService.getCompletedTasks(keyword);
+            if (tasks.isEmpty()) {
+                sendNotification(event.getChatId(), "没有找到名称包含 " + keyword + " 的待整理任务。");
+                return;
+            }
+            List<String> hashes = tasks.stream().map(TorrentTask::getHash).toList();
+            StringBuilder sb = new StringBuilder("已优先加入整理队列：\n");
+            for (QbTorrent torrent : qbService.getTorrentsByHashes(hashes)) {
+                if (enqueue(torrent, CopyJob.PRIORITY_USER)) {
+                    sb.append(torrent.getName()).append('\n');
                 }
             }
+            dispatch();
+            sendNotification(event.getChatId(), sb.toString());
         } catch (IOException e) {
-            log.error("检查下载任务失败", e);
+            log.error("处理整理请求失败: {}", keyword, e);
+            sendNotification(event.getChatId(), "处理整理请求失败，请稍后重试。");
+        }
+    }
+
+    /**
+     * 应用启动完成后重新排队上次中断的整理任务，并注册兜底整理任务。
+     * 兜底整理任务在独立的 organize 任务线程中执行，不会推迟下载状态检查。
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void scheduleOrganizeJob() {
+        copyJobService.requeueInterrupted();
+        dispatch();
+        int interval = pollConfig.getOrganizeInterval();
+        jobScheduler.scheduleWithFixedDelay("organize", interval, interval, TimeUnit.MINUTES, this::checkAndCopyFiles);
+    }
+
+    /**
+     * 兜底检查下载任务，并对符合条件的任务执行文件复制操作。
+     * 下载完成后会通过 {@link TorrentCompletedEvent} 立即整理，这里只处理错过事件的任务（例如整理时应用重启），
+     * 因此按 poll.options.organize-interval 低频执行，且没有已完成未整理的任务时直接跳过。
+     * 发现的任务加入整理队列，由队列按优先级和设备并发上限执行。
+     *
+     * @return 本次加入整理队列的种子数量
+     * @throws IOException 如果获取种子列表时发生IO异常，则抛出此异常
+     */
+    public int checkAndCopyFiles() throws IOException {
+        if (!torrentTaskService.hasCompletedTasks()) {
+            return 0;
+        }
+        int organized = 0;
+        List<QbTorrent> torrents = qbService.getTorrents().stream()
+                // 包括 stalledUP、stoppedUP、queuedUP 等所有下载完成的状态（qBittorrent 5 中做种的种子多为这些状态）
+                .filter(QbTorrent::isCompleted)
+                .toList();
+        // 一次批量查询所有候选种子对应的任务
+        Map<String, TorrentTask> tasks = torrentTaskService.getTasksByHashes(
+                torrents.stream().map(QbTorrent::getHash).toList());
+        for (QbTorrent torrent : torrents) {
+            TorrentTask task = tasks.get(torrent.getHash());
+            if (task != null && task.getStatus() != TorrentTask.TaskStatus.ORGANIZED
+                    && enqueue(torrent, CopyJob.PRIORITY_AUTO)) {
+                organized++;
+            }
         }
+        dispatch();
+        return organized;
     }
 
     /**
-     * 复制指定种子任务中的大文件到目标路径。
+     * 将种子加入整理队列，同时记录源和目标所在的设备，用于限制每个设备上同时执行的任务数量。
+     *
+     * @param torrent  种子信息
+     * @param priority 任务优先级
+     * @return 如果任务已入队则返回true，任务正在执行时返回false
+     */
+    private boolean enqueue(QbTorrent torrent, int priority) {
+        return copyJobService.enqueue(torrent.getHash(), torrent.getName(), torrent.getSize(), priority,
+                device(Paths.get(torrent.getSavePath())), device(Paths.get(alistConfig.getTargetPath())));
+    }
+
+    /**
+     * 获取路径所在设备的标识。
+     * 容器中不相关的挂载点的文件系统名称经常都是 overlay 或 tmpfs，因此使用包含挂载点的 {@link FileStore#toString()}，
+     * 与 {@link FileStore} 的相等性一致，不同挂载点不会合并为同一个设备。
+     *
+     * @param path 路径
+     * @return 设备标识，无法获取时返回路径本身
+     */
+    private static String device(Path path) {
+        try {
+            return Files.getFileStore(path).toString();
+        } catch (IOException e) {
+            return path.toString();
+        }
+    }
+
+    /**
+     * 从整理队列中领取可以执行的任务，提交到整理线程池执行。
+     */
+    private void dispatch() {
+        for (CopyJob job : copyJobService.claim()) {
+            try {
+                organizeExecutor.execute(() -> runJob(job));
+            } catch (TaskRejectedException e) {
+                // 整理线程池已满，任务放回队列，不计入执行次数
+                log.warn("整理线程池繁忙，任务重新排队: {}", job.getName());
+                copyJobService.requeue(job);
+            }
+        }
+    }
+
+    /**
+     * 执行一个整理任务，结束后继续领取队列中的下一个任务。
+     *
+     * @param job 整理任务
+     */
+    private void runJob(CopyJob job) {
+        long start = System.nanoTime();
+        try {
+            QbTorrent torrent = qbService.getCachedTorrent(job.getId());
+            TorrentTask task = torrentTaskService.getTaskByHash(job.getId());
+            if (torrent == null || task == null) {
+                copyJobService.failed(job, "种子或任务不存在");
+                return;
+            }
+            long bytes = task.getStatus() == TorrentTask.TaskStatus.ORGANIZED ? 0 : copyFiles(torrent, task);
+            copyJobService.completed(job, bytes, System.nanoTime() - start);
+        } catch (Exception e) {
+            log.error("复制文件失败: {}", job.getName(), e);
+            copyJobService.failed(job, e.getMessage());
+        } finally {
+            dispatch();
+        }
+    }
+
+    /**
+     * 复制指定种子任务中满足文件选择规则的文件到目标路径，由 {@link FileCopyEngine} 并行复制；
+     * 开启 alist.options.upload 时改为由 {@link AlistService} 并行上传到Alist中的目标路径。
      *
      * @param torrent 种子任务对象
      * @param task    任务信息对象
+     * @return 整理的文件总大小（字节）
+     * @throws IOException 如果复制过程中发生IO异常，则抛出此异常
      */
-    private void copyFiles(QbTorrent torrent, TorrentTask task) {
-        try {
-            Path sourcePath = Paths.get(torrent.getSavePath());
-            Path targetPath = Paths.get(alistConfig.getTargetPath());
-
-            Files.walkFileTree(sourcePath, new SimpleFileVisitor<Path>() {
-                @Override
-                public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) throws IOException {
-                    if (attrs.size() > LARGE_FILE_SIZE) {
-                        Path targetFile = targetPath.resolve(sourcePath.relativize(file));
-                        Files.createDirectories(targetFile.getParent());
-                        Files.copy(file, targetFile, StandardCopyOption.REPLACE_EXISTING);
-                        log.info("复制大文件: {} -> {}", file, targetFile);
-                    }
-                    return FileVisitResult.CONTINUE;
-                }
-            });
+    private long copyFiles(QbTorrent torrent, TorrentTask task) throws IOException {
+        Path sourcePath = Paths.get(torrent.getSavePath());
+        Path targetPath = Paths.get(alistConfig.getTargetPath());
 
+        // 按种子的文件清单收集需要的文件（不遍历保存目录中其他种子的文件），再交给复制引擎并行复制
+        List<FileCopyEngine.CopyRequest> requests = new ArrayList<>();
+        for (ManifestFile file : torrentManifestService.getManifest(torrent).getFiles()) {
+            if (file.getPriority() == QbTorrentFile.PRIORITY_SKIP || !fileSelectionService.isWanted(file.getPath(), file.getSize())) {
+                continue;
+            }
+            Path sourceFile = sourcePath.resolve(file.getPath());
+            Path targetFile = targetPath.resolve(file.getPath());
+            requests.add(new FileCopyEngine.CopyRequest(sourceFile, targetFile));
+            log.info("复制文件: {} -> {}", sourceFile, targetFile);
+        }
+        if (alistConfig.isUpload()) {
+            List<AlistService.UploadRequest> uploads = new ArrayList<>(requests.size());
+            for (FileCopyEngine.CopyRequest request : requests) {
+                uploads.add(new AlistService.UploadRequest(request.source(), remotePath(sourcePath.relativize(request.source()))));
+            }
+            long bytes = alistService.upload(uploads);
             torrentTaskService.updateTaskStatus(torrent.getHash(), TorrentTask.TaskStatus.ORGANIZED);
-            log.info("文件整理完成: {}", torrent.getName());
-        } catch (IOException e) {
-            log.error("复制文件失败: {}", torrent.getName(), e);
+            torrentManifestService.delete(List.of(torrent.getHash()));
+            log.info("文件上传完成: {}", torrent.getName());
+            return bytes;
+        }
+        // 跳过或硬链接内容相同的已整理文件，有复制日志的文件交给复制引擎续传
+        List<FileCopyEngine.CopyRequest> pending = new ArrayList<>(requests.size());
+        for (FileCopyEngine.CopyRequest request : requests) {
+            if (!organizeConfig.isDedup() || copyJournalService.find(torrent.getHash(), request.target()) != null
+                    || !deduplicate(request)) {
+                pending.add(request);
+            }
+        }
+        // 以种子哈希值作为复制日志的键，重启后可以从中断处继续
+        FileCopyEngine.CopyResult result = fileCopyEngine.copy(torrent.getHash(), pending);
+        if (organizeConfig.isDedup()) {
+            for (FileCopyEngine.CopyRequest request : pending) {
+                contentIndexService.record(request.target());
+            }
+        }
+
+        // 保存复制时计算的校验和
+        List<FileDigest> digests = new ArrayList<>();
+        for (FileCopyEngine.CopyRequest request : requests) {
+            String checksum = result.checksums().get(request.target());
+            if (checksum != null) {
+                digests.add(new FileDigest(targetPath.relativize(request.target()).toString(),
+                        Files.size(request.target()), checksum));
+            }
+        }
+        if (!digests.isEmpty()) {
+            torrentTaskService.updateTaskFileDigests(torrent.getHash(), digests);
+        }
+
+        torrentTaskService.updateTaskStatus(torrent.getHash(), TorrentTask.TaskStatus.ORGANIZED);
+        copyJournalService.clear(torrent.getHash());
+        torrentManifestService.delete(List.of(torrent.getHash()));
+        log.info("文件整理完成: {}", torrent.getName());
+        return result.bytes();
+    }
+
+    /**
+     * 查找与源文件内容相同的已整理文件，目标文件本身内容相同时直接跳过，否则从已整理文件硬链接到目标路径。
+     *
+     * @param request 复制请求
+     * @return 如果已跳过或硬链接则返回true，需要复制时返回false
+     */
+    private boolean deduplicate(FileCopyEngine.CopyRequest request) {
+        try {
+            Path existing = contentIndexService.findDuplicate(request.source(), request.target());
+            if (existing == null) {
+                return false;
+            }
+            if (existing.equals(request.target())) {
+                log.info("目标文件内容相同，跳过复制: {}", request.target());
+                return true;
+            }
+            Files.createDirectories(request.target().getParent());
+            Files.deleteIfExists(request.target());
+            Files.createLink(request.target(), existing);
+            contentIndexService.record(request.target());
+            log.info("硬链接内容相同的已整理文件: {} -> {}", existing, request.target());
+            return true;
+        } catch (IOException | UnsupportedOperationException e) {
+            log.warn("内容去重失败，改为复制: {}, {}", request.target(), e.getMessage());
+            return false;
+        }
+    }
+
+    /**
+     * 将相对于下载目录的路径转换为Alist中的目标路径。
+     *
+     * @param relative 相对路径
+     * @return Alist中的目标路径
+     */
+    private String remotePath(Path relative) {
+        StringBuilder sb = new StringBuilder(alistConfig.getTargetPath().replaceAll("/+$", ""));
+        for (Path part : relative) {
+            sb.append('/').append(part);
         }
+        return sb.toString();
     }
-} 
\ No newline at end of file
+}
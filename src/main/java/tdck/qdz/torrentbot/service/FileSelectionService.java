@@ -0,0 +1,172 @@
+package tdck.qdz.torrentbot.service;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.config.FileSelectionConfig;
+import tdck.qdz.torrentbot.event.AddTorrentEvent;
+import tdck.qdz.torrentbot.model.QbTorrentFile;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * 服务类，用于按文件选择规则挑选种子中需要的文件。
+ * 添加种子后获取种子的文件列表，将不需要的文件（样片、NFO、截图等）在qBittorrent中设置为不下载，
+ * 带宽和磁盘只用于最终会被整理的内容；整理时也使用同一套规则选择要复制的文件。
+ * 磁力链接添加的种子需要先获取元数据才有文件列表，因此按固定间隔重试，直到获取到文件列表或达到最大重试次数。
+ */
+@Slf4j
+@Service
+public class FileSelectionService {
+    /**
+     * 文件选择在后台任务调度服务中的任务名称。
+     */
+    private static final String JOB_NAME = "file-selection";
+
+    /**
+     * 注入的文件选择配置对象。
+     */
+    private final FileSelectionConfig fileSelectionConfig;
+
+    /**
+     * 注入的Qbittorrent服务对象，用于获取文件列表和设置文件优先级。
+     */
+    private final QbService qbService;
+
+    /**
+     * 注入的后台任务调度服务，文件选择在独立的 file-selection 任务线程中执行。
+     */
+    private final JobScheduler jobScheduler;
+
+    /**
+     * 注入的种子文件清单服务，获取到的文件列表同时写入清单，整理时不必再请求qBittorrent。
+     */
+    private final TorrentManifestService torrentManifestService;
+
+    /**
+     * 编译后的排除规则。
+     */
+    private final List<Pattern> excludes;
+
+    /**
+     * 小写的保留扩展名。
+     */
+    private final Set<String> extensions;
+
+    public FileSelectionService(FileSelectionConfig fileSelectionConfig, QbService qbService, JobScheduler jobScheduler,
+                                TorrentManifestService torrentManifestService) {
+        this.fileSelectionConfig = fileSelectionConfig;
+        this.qbService = qbService;
+        this.jobScheduler = jobScheduler;
+        this.torrentManifestService = torrentManifestService;
+        this.excludes = fileSelectionConfig.getExcludes().stream().map(Pattern::compile).toList();
+        this.extensions = fileSelectionConfig.getExtensions().stream()
+                .map(extension -> extension.replaceFirst("^\\.", "").toLowerCase(Locale.ROOT))
+                .collect(Collectors.toUnmodifiableSet());
+    }
+
+    /**
+     * 判断文件是否需要保留。
+     *
+     * @param path 文件在种子中的相对路径，以/或系统路径分隔符分隔
+     * @param size 文件大小（字节）
+     * @return 如果文件满足最小大小、扩展名和排除规则则返回true
+     */
+    public boolean isWanted(String path, long size) {
+        if (size < fileSelectionConfig.getMinSize() * 1024L * 1024L) {
+            return false;
+        }
+        String normalized = path.replace('\\', '/');
+        if (!extensions.isEmpty()) {
+            int dot = normalized.lastIndexOf('.');
+            if (dot < normalized.lastIndexOf('/') + 1
+                    || !extensions.contains(normalized.substring(dot + 1).toLowerCase(Locale.ROOT))) {
+                return false;
+            }
+        }
+        for (Pattern exclude : excludes) {
+            if (exclude.matcher(normalized).find()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 添加种子后开始文件选择。立即尝试一次，种子文件添加的种子通常此时已有文件列表。
+     *
+     * @param event 添加种子事件对象
+     */
+    @EventListener
+    public void handleAddTorrentEvent(AddTorrentEvent event) {
+        if (!fileSelectionConfig.isEnabled() || event.getHash() == null) {
+            return;
+        }
+        schedule(event.getHash(), 0, 0);
+    }
+
+    /**
+     * 安排一次文件选择。
+     *
+     * @param hash    种子的哈希值
+     * @param attempt 已重试的次数
+     * @param delay   延迟（秒）
+     */
+    private void schedule(String hash, int attempt, long delay) {
+        jobScheduler.schedule(JOB_NAME, delay, TimeUnit.SECONDS, () -> select(hash, attempt));
+    }
+
+    /**
+     * 获取种子的文件列表，将不需要的文件设置为不下载。尚未获取到元数据时稍后重试。
+     *
+     * @param hash    种子的哈希值
+     * @param attempt 已重试的次数
+     * @return 设置为不下载的文件数量
+     */
+    private int select(String hash, int attempt) {
+        List<QbTorrentFile> files;
+        try {
+            files = qbService.getTorrentFiles(hash);
+        } catch (IOException e) {
+            log.warn("获取种子文件列表失败: {}, {}", hash, e.getMessage());
+            files = List.of();
+        }
+        if (files.isEmpty()) {
+            if (attempt < fileSelectionConfig.getMetadataRetries()) {
+                schedule(hash, attempt + 1, fileSelectionConfig.getMetadataRetryInterval());
+            } else {
+                log.warn("等待种子元数据超时，不调整文件优先级: {}", hash);
+            }
+            return 0;
+        }
+
+        List<Integer> unwanted = new ArrayList<>();
+        for (QbTorrentFile file : files) {
+            if (file.getPriority() != QbTorrentFile.PRIORITY_SKIP && !isWanted(file.getName(), file.getSize())) {
+                unwanted.add(file.getIndex());
+            }
+        }
+        if (unwanted.isEmpty() || files.stream().noneMatch(file -> isWanted(file.getName(), file.getSize()))) {
+            // 没有需要跳过的文件，或者没有任何文件满足规则（例如音乐、小文件合集），保持原样下载
+            torrentManifestService.save(hash, files);
+            return 0;
+        }
+        if (!qbService.setFilePriority(hash, unwanted, QbTorrentFile.PRIORITY_SKIP)) {
+            torrentManifestService.save(hash, files);
+            return 0;
+        }
+        Set<Integer> skipped = Set.copyOf(unwanted);
+        files.stream().filter(file -> skipped.contains(file.getIndex()))
+                .forEach(file -> file.setPriority(QbTorrentFile.PRIORITY_SKIP));
+        torrentManifestService.save(hash, files);
+        log.info("跳过不需要的文件: {}，文件数: {}/{}", hash, unwanted.size(), files.size());
+        return unwanted.size();
+    }
+}
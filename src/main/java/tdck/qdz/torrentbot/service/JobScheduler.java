@@ -0,0 +1,200 @@
+package tdck.qdz.torrentbot.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAccumulator;
+
+/**
+ * 服务类，用于调度后台定时任务。
+ * 每个任务使用独立的单线程调度器，耗时很长的任务（例如复制大文件）不会推迟其他任务；
+ * 同一个任务的各次执行在其调度线程上依次进行，不会重叠，执行时间过长时后续执行顺延，顺延的时间计入延迟。
+ * 每个任务记录执行次数、失败次数、执行时间、处理条目数和延迟（实际开始时间晚于计划时间的部分），可通过 /stats 命令查看。
+ */
+@Slf4j
+@Service
+public class JobScheduler {
+    /**
+     * 任务名称到任务运行器的映射。
+     */
+    private final Map<String, JobRunner> jobs = new ConcurrentHashMap<>();
+
+    /**
+     * 后台任务。
+     */
+    @FunctionalInterface
+    public interface Job {
+        /**
+         * 执行一次任务。
+         *
+         * @return 本次处理的条目数
+         * @throws Exception 如果任务执行失败，则抛出此异常
+         */
+        int run() throws Exception;
+    }
+
+    /**
+     * 单个任务的运行器，持有任务的调度线程和统计数据。
+     */
+    private static final class JobRunner {
+        private final String name;
+        private final ScheduledExecutorService executor;
+        private final AtomicLong runs = new AtomicLong();
+        private final AtomicLong failed = new AtomicLong();
+        private final AtomicLong items = new AtomicLong();
+        private final AtomicLong totalNanos = new AtomicLong();
+        private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+        private final LongAccumulator maxLagNanos = new LongAccumulator(Math::max, 0);
+        private volatile long lastNanos;
+        private volatile long lastLagNanos;
+        private volatile int lastItems;
+        private volatile boolean running;
+
+        private JobRunner(String name) {
+            this.name = name;
+            this.executor = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread thread = new Thread(r, "job-" + name);
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+
+        /**
+         * 执行一次任务并记录统计数据。
+         *
+         * @param job         任务
+         * @param plannedTime 计划开始时间（System.nanoTime）
+         */
+        private void run(Job job, long plannedTime) {
+            running = true;
+            long start = System.nanoTime();
+            long lag = Math.max(0, start - plannedTime);
+            lastLagNanos = lag;
+            maxLagNanos.accumulate(lag);
+            try {
+                int processed = job.run();
+                lastItems = processed;
+                items.addAndGet(processed);
+            } catch (Exception e) {
+                failed.incrementAndGet();
+                log.error("任务 {} 执行失败", name, e);
+            } finally {
+                long duration = System.nanoTime() - start;
+                lastNanos = duration;
+                totalNanos.addAndGet(duration);
+                maxNanos.accumulate(duration);
+                runs.incrementAndGet();
+                running = false;
+            }
+        }
+    }
+
+    /**
+     * 按固定间隔重复执行任务，间隔从上一次执行结束时开始计算。
+     *
+     * @param name         任务名称，同一名称的任务共享调度线程和统计数据
+     * @param initialDelay 首次执行的延迟
+     * @param delay        两次执行之间的间隔
+     * @param unit         时间单位
+     * @param job          任务
+     */
+    public void scheduleWithFixedDelay(String name, long initialDelay, long delay, TimeUnit unit, Job job) {
+        JobRunner runner = runner(name);
+        long delayNanos = unit.toNanos(delay);
+        runner.executor.schedule(new Runnable() {
+            private long plannedTime = System.nanoTime() + unit.toNanos(initialDelay);
+
+            @Override
+            public void run() {
+                runner.run(job, plannedTime);
+                plannedTime = System.nanoTime() + delayNanos;
+                runner.executor.schedule(this, delayNanos, TimeUnit.NANOSECONDS);
+            }
+        }, initialDelay, unit);
+        log.info("注册定时任务: {}，间隔: {}{}", name, delay, unit);
+    }
+
+    /**
+     * 在指定延迟后执行一次任务，用于自行安排下一次执行时间的任务。
+     *
+     * @param name  任务名称，同一名称的任务共享调度线程和统计数据
+     * @param delay 延迟
+     * @param unit  时间单位
+     * @param job   任务
+     * @return 可用于取消或查询剩余延迟的调度结果
+     */
+    public ScheduledFuture<?> schedule(String name, long delay, TimeUnit unit, Job job) {
+        JobRunner runner = runner(name);
+        long plannedTime = System.nanoTime() + unit.toNanos(delay);
+        return runner.executor.schedule(() -> runner.run(job, plannedTime), delay, unit);
+    }
+
+    /**
+     * 获取或创建任务运行器。
+     *
+     * @param name 任务名称
+     * @return 任务运行器
+     */
+    private JobRunner runner(String name) {
+        return jobs.computeIfAbsent(name, JobRunner::new);
+    }
+
+    /**
+     * 生成所有任务的统计信息。
+     *
+     * @return 可读的统计信息
+     */
+    public String format() {
+        if (jobs.isEmpty()) {
+            return "暂无后台任务统计信息。";
+        }
+        StringBuilder sb = new StringBuilder("后台任务统计：\n");
+        jobs.entrySet().stream()
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(entry -> {
+                    JobRunner runner = entry.getValue();
+                    long runs = Math.max(1, runner.runs.get());
+                    sb.append(String.format("%s%s\n执行：%d，失败：%d\n"
+                                    + "上次耗时：%dms，平均耗时：%dms，最大耗时：%dms\n"
+                                    + "上次处理：%d，累计处理：%d\n上次延迟：%dms，最大延迟：%dms\n\n",
+                            entry.getKey(),
+                            runner.running ? "（执行中）" : "",
+                            runner.runs.get(),
+                            runner.failed.get(),
+                            toMillis(runner.lastNanos),
+                            toMillis(runner.totalNanos.get() / runs),
+                            toMillis(runner.maxNanos.get()),
+                            runner.lastItems,
+                            runner.items.get(),
+                            toMillis(runner.lastLagNanos),
+                            toMillis(runner.maxLagNanos.get())));
+                });
+        return sb.toString();
+    }
+
+    /**
+     * 将纳秒转换为毫秒。
+     *
+     * @param nanos 纳秒
+     * @return 毫秒
+     */
+    private static long toMillis(long nanos) {
+        return TimeUnit.NANOSECONDS.toMillis(nanos);
+    }
+
+    /**
+     * 停止所有任务。
+     */
+    @PreDestroy
+    public void close() {
+        jobs.values().forEach(runner -> runner.executor.shutdownNow());
+    }
+}
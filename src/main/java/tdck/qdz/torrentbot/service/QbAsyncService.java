@@ -0,0 +1,160 @@
+package tdck.qdz.torrentbot.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.model.QbTorrent;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 服务类，提供与 {@link QbService} 对应的非阻塞qBittorrent接口。
+ * 所有方法立即返回 {@link CompletableFuture}，请求在有界的 qb-async 线程池中执行，
+ * Telegram的长轮询线程、定时任务和事件监听器可以同时发起多个请求，而不必逐个等待。
+ * 请求通过 {@link QbService} 发送，共用同一个连接池和登录会话；暂停、恢复、删除和标签操作经过 {@link QbBatchCoalescer}，
+ * 开启合并时短时间内的同类操作合并为一次请求。
+ * 线程池队列已满时方法直接抛出 {@link org.springframework.core.task.TaskRejectedException}，由调用方处理。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QbAsyncService {
+    /**
+     * 注入的qBittorrent服务对象，实际发送请求。
+     */
+    private final QbService qbService;
+
+    /**
+     * 注入的批量操作合并服务。
+     */
+    private final QbBatchCoalescer qbBatchCoalescer;
+
+    /**
+     * 注入的qBittorrent异步请求线程池。
+     */
+    private final ThreadPoolTaskExecutor qbAsyncExecutor;
+
+    /**
+     * 在qBittorrent异步请求线程池中执行可能抛出IO异常的请求。
+     *
+     * @param request 请求
+     * @param <T>     结果类型
+     * @return 请求完成后完成；发生IO异常时以 {@link UncheckedIOException} 异常完成
+     */
+    private <T> CompletableFuture<T> supply(IoSupplier<T> request) {
+        return CompletableFuture.supplyAsync(() -> {
+            try {
+                return request.get();
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, qbAsyncExecutor);
+    }
+
+    /**
+     * 可能抛出IO异常的请求。
+     *
+     * @param <T> 结果类型
+     */
+    @FunctionalInterface
+    private interface IoSupplier<T> {
+        T get() throws IOException;
+    }
+
+    /**
+     * 异步添加磁力链接。
+     *
+     * @param magnetUrl 磁力链接
+     * @return 添加完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> addTorrent(String magnetUrl) {
+        return supply(() -> qbService.addTorrent(magnetUrl));
+    }
+
+    /**
+     * 异步上传种子文件。
+     *
+     * @param torrentData 种子文件内容
+     * @param fileName    种子文件名
+     * @return 添加完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> addTorrent(byte[] torrentData, String fileName) {
+        return supply(() -> qbService.addTorrent(torrentData, fileName));
+    }
+
+    /**
+     * 异步获取所有种子，数据来自增量同步的内存种子表。
+     *
+     * @return 种子列表
+     */
+    public CompletableFuture<List<QbTorrent>> getTorrents() {
+        return supply(qbService::getTorrents);
+    }
+
+    /**
+     * 异步获取指定哈希值的种子，数据来自增量同步的内存种子表。
+     *
+     * @param hash 种子的哈希值
+     * @return 种子信息，不存在时为null
+     */
+    public CompletableFuture<QbTorrent> getTorrent(String hash) {
+        return supply(() -> qbService.getCachedTorrent(hash));
+    }
+
+    /**
+     * 异步删除种子。
+     *
+     * @param hash        种子的哈希值
+     * @param deleteFiles 是否同时删除种子文件
+     * @return 删除完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> deleteTorrent(String hash, boolean deleteFiles) {
+        return qbBatchCoalescer.deleteTorrent(hash, deleteFiles);
+    }
+
+    /**
+     * 异步暂停种子。
+     *
+     * @param hash 种子的哈希值
+     * @return 暂停完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> pauseTorrent(String hash) {
+        return qbBatchCoalescer.pauseTorrent(hash);
+    }
+
+    /**
+     * 异步恢复种子。
+     *
+     * @param hash 种子的哈希值
+     * @return 恢复完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> resumeTorrent(String hash) {
+        return qbBatchCoalescer.resumeTorrent(hash);
+    }
+
+    /**
+     * 异步为种子添加标签。
+     *
+     * @param hash 种子的哈希值
+     * @param tags 要添加的标签，多个标签以逗号分隔
+     * @return 添加完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> addTags(String hash, String tags) {
+        return qbBatchCoalescer.addTags(hash, tags);
+    }
+
+    /**
+     * 异步移除种子的标签。
+     *
+     * @param hash 种子的哈希值
+     * @param tags 要移除的标签，多个标签以逗号分隔
+     * @return 移除完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> removeTags(String hash, String tags) {
+        return qbBatchCoalescer.removeTags(hash, tags);
+    }
+}
@@ -0,0 +1,228 @@
+package tdck.qdz.torrentbot.service;
+
+import jakarta.annotation.PreDestroy;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.config.QbConfig;
+
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 服务类，用于合并短时间内到达的单个种子操作。
+ * 在合并窗口内提交的同类操作（例如多次暂停）会被合并成一次 hashes=a|b|c 请求，
+ * 批量处理数百个种子时只需少量往返。该功能默认关闭，通过 qb.options.coalesce 开启，合并窗口由 qb.options.coalesce-window 配置；
+ * 关闭时每个操作单独发送。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class QbBatchCoalescer {
+    /**
+     * 单个批次的最大哈希数量，达到后立即发送，不再等待合并窗口结束。
+     */
+    private static final int MAX_BATCH_SIZE = 500;
+
+    /**
+     * 注入的qBittorrent配置对象，提供合并窗口配置。
+     */
+    private final QbConfig qbConfig;
+
+    /**
+     * 注入的qBittorrent服务对象，用于发送合并后的批量请求。
+     */
+    private final QbService qbService;
+
+    /**
+     * 等待发送的批次，键为操作类型及其参数。
+     */
+    private final Map<BatchKey, Batch> pending = new HashMap<>();
+
+    /**
+     * 合并线程的编号计数器。
+     */
+    private final AtomicInteger threadCounter = new AtomicInteger();
+
+    /**
+     * 定时发送批次的线程池。
+     */
+    private final ScheduledExecutorService scheduler = Executors.newScheduledThreadPool(2, r -> {
+        Thread thread = new Thread(r, "qb-coalescer-" + threadCounter.incrementAndGet());
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /**
+     * 批量操作类型。
+     */
+    private enum Operation {
+        PAUSE,
+        RESUME,
+        DELETE,
+        ADD_TAGS,
+        REMOVE_TAGS
+    }
+
+    /**
+     * 批次键，相同操作类型且参数相同的请求才能合并。
+     *
+     * @param operation 操作类型
+     * @param argument  操作参数，例如标签或是否删除文件
+     */
+    private record BatchKey(Operation operation, String argument) {
+    }
+
+    /**
+     * 一个正在收集中的批次，批次内所有调用方共享同一个结果。
+     */
+    private static final class Batch {
+        private final Set<String> hashes = new LinkedHashSet<>();
+        private final CompletableFuture<Boolean> result = new CompletableFuture<>();
+    }
+
+    /**
+     * 合并暂停种子操作。
+     *
+     * @param hash 种子的哈希值
+     * @return 所在批次发送完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> pauseTorrent(String hash) {
+        return submit(new BatchKey(Operation.PAUSE, ""), hash);
+    }
+
+    /**
+     * 合并恢复种子操作。
+     *
+     * @param hash 种子的哈希值
+     * @return 所在批次发送完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> resumeTorrent(String hash) {
+        return submit(new BatchKey(Operation.RESUME, ""), hash);
+    }
+
+    /**
+     * 合并删除种子操作，是否删除文件不同的请求分属不同批次。
+     *
+     * @param hash        种子的哈希值
+     * @param deleteFiles 是否同时删除种子文件
+     * @return 所在批次发送完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> deleteTorrent(String hash, boolean deleteFiles) {
+        return submit(new BatchKey(Operation.DELETE, String.valueOf(deleteFiles)), hash);
+    }
+
+    /**
+     * 合并添加标签操作，标签不同的请求分属不同批次。
+     *
+     * @param hash 种子的哈希值
+     * @param tags 要添加的标签
+     * @return 所在批次发送完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> addTags(String hash, String tags) {
+        return submit(new BatchKey(Operation.ADD_TAGS, tags), hash);
+    }
+
+    /**
+     * 合并移除标签操作，标签不同的请求分属不同批次。
+     *
+     * @param hash 种子的哈希值
+     * @param tags 要移除的标签
+     * @return 所在批次发送完成后完成，成功为true
+     */
+    public CompletableFuture<Boolean> removeTags(String hash, String tags) {
+        return submit(new BatchKey(Operation.REMOVE_TAGS, tags), hash);
+    }
+
+    /**
+     * 将哈希值加入对应批次。批次中的第一个请求负责安排在合并窗口结束时发送。
+     *
+     * @param key  批次键
+     * @param hash 种子的哈希值
+     * @return 所在批次的结果
+     */
+    private CompletableFuture<Boolean> submit(BatchKey key, String hash) {
+        int window = qbConfig.getCoalesceWindow();
+        if (!qbConfig.isCoalesce() || window <= 0) {
+            return CompletableFuture.supplyAsync(() -> dispatch(key, Set.of(hash)), scheduler);
+        }
+
+        Batch batch;
+        boolean full;
+        synchronized (pending) {
+            batch = pending.get(key);
+            if (batch == null) {
+                batch = new Batch();
+                pending.put(key, batch);
+                Batch scheduled = batch;
+                scheduler.schedule(() -> flush(key, scheduled), window, TimeUnit.MILLISECONDS);
+            }
+            batch.hashes.add(hash);
+            full = batch.hashes.size() >= MAX_BATCH_SIZE;
+        }
+        if (full) {
+            Batch filled = batch;
+            scheduler.execute(() -> flush(key, filled));
+        }
+        return batch.result;
+    }
+
+    /**
+     * 发送指定批次，并用结果完成该批次的所有调用方。
+     *
+     * @param key   批次键
+     * @param batch 要发送的批次
+     */
+    private void flush(BatchKey key, Batch batch) {
+        synchronized (pending) {
+            // 批次可能已因达到上限被提前发送
+            if (!pending.remove(key, batch)) {
+                return;
+            }
+        }
+        try {
+            batch.result.complete(dispatch(key, batch.hashes));
+        } catch (Exception e) {
+            log.error("批量操作失败: {}", key.operation(), e);
+            batch.result.complete(false);
+        }
+    }
+
+    /**
+     * 根据操作类型调用对应的批量接口。
+     *
+     * @param key    批次键
+     * @param hashes 批次中的哈希值
+     * @return 如果操作成功则返回true，否则返回false
+     */
+    private boolean dispatch(BatchKey key, Set<String> hashes) {
+        log.debug("发送合并后的批量操作: {}，种子数={}", key.operation(), hashes.size());
+        return switch (key.operation()) {
+            case PAUSE -> qbService.pauseTorrents(hashes);
+            case RESUME -> qbService.resumeTorrents(hashes);
+            case DELETE -> qbService.deleteTorrents(hashes, Boolean.parseBoolean(key.argument()));
+            case ADD_TAGS -> qbService.addTags(hashes, key.argument());
+            case REMOVE_TAGS -> qbService.removeTags(hashes, key.argument());
+        };
+    }
+
+    /**
+     * 立即发送所有未发送的批次并关闭线程池。
+     */
+    @PreDestroy
+    public void close() {
+        Map<BatchKey, Batch> remaining;
+        synchronized (pending) {
+            remaining = Map.copyOf(pending);
+        }
+        remaining.forEach(this::flush);
+        scheduler.shutdown();
+    }
+}
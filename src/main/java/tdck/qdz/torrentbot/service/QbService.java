@@ -1,25 +1,62 @@
 package tdck.qdz.torrentbot.service;
 
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.databind.JsonNode;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.node.ObjectNode;
+import jakarta.annotation.PreDestroy;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.apache.hc.client5.http.classic.methods.HttpGet;
 import org.apache.hc.client5.http.classic.methods.HttpPost;
+import org.apache.hc.client5.http.config.ConnectionConfig;
+import org.apache.hc.client5.http.config.RequestConfig;
 import org.apache.hc.client5.http.cookie.BasicCookieStore;
 import org.apache.hc.client5.http.cookie.Cookie;
+import org.apache.hc.client5.http.entity.UrlEncodedFormEntity;
 import org.apache.hc.client5.http.entity.mime.MultipartEntityBuilder;
 import org.apache.hc.client5.http.impl.classic.CloseableHttpClient;
-import org.apache.hc.client5.http.impl.classic.CloseableHttpResponse;
 import org.apache.hc.client5.http.impl.classic.HttpClients;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManager;
+import org.apache.hc.client5.http.impl.io.PoolingHttpClientConnectionManagerBuilder;
+import org.apache.hc.core5.http.ClassicHttpRequest;
 import org.apache.hc.core5.http.ContentType;
-import org.apache.hc.core5.http.io.entity.StringEntity;
+import org.apache.hc.core5.http.Header;
+import org.apache.hc.core5.http.HttpEntity;
+import org.apache.hc.core5.http.HttpHeaders;
+import org.apache.hc.core5.http.HttpStatus;
+import org.apache.hc.core5.http.NameValuePair;
+import org.apache.hc.core5.http.ParseException;
+import org.apache.hc.core5.http.io.HttpClientResponseHandler;
+import org.apache.hc.core5.http.io.entity.EntityUtils;
+import org.apache.hc.core5.http.message.BasicHeader;
+import org.apache.hc.core5.http.message.BasicNameValuePair;
+import org.apache.hc.core5.net.URIBuilder;
+import org.apache.hc.core5.util.TimeValue;
+import org.apache.hc.core5.util.Timeout;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import tdck.qdz.torrentbot.config.QbConfig;
+import tdck.qdz.torrentbot.event.TorrentRemovedEvent;
 import tdck.qdz.torrentbot.model.QbTorrent;
+import tdck.qdz.torrentbot.model.QbTorrentFile;
+import tdck.qdz.torrentbot.model.TorrentField;
+import tdck.qdz.torrentbot.model.TorrentSnapshot;
 
 import java.io.File;
 import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
+import java.util.Map;
+import java.util.Set;
 
 /**
  * 服务类，用于与qBittorrent进行交互。
@@ -39,26 +76,167 @@ public class QbService {
      */
     private final ObjectMapper objectMapper;
 
+    /**
+     * 注入的事件发布器，用于在种子被删除时发布 {@link TorrentRemovedEvent}。
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
     /**
      * Cookie存储，用于保存登录后的会话信息。
      */
     private final BasicCookieStore cookieStore = new BasicCookieStore();
 
+    /**
+     * 会话过期标记，响应处理器收到403响应时返回该对象，表示需要重新登录后重试。
+     */
+    private static final Object SESSION_EXPIRED = new Object();
+
+    /**
+     * 登录锁，保证并发请求同时发现会话失效时只有一个线程执行登录。
+     */
+    private final Object loginLock = new Object();
+
     /**
      * HTTP客户端，用于发送HTTP请求。
      */
-    private CloseableHttpClient client;
+    private volatile CloseableHttpClient client;
 
     /**
      * 会话ID，用于标识当前登录的会话。
      */
-    private String sid;
+    private volatile String sid;
 
-    void ensureLoggedIn() throws IOException {
-        if (client == null) {
-            client = HttpClients.custom()
+    /**
+     * 会话代数，每次登录成功后递增，用于判断会话是否已被其他线程刷新。
+     */
+    private volatile long sessionEpoch;
+
+    /**
+     * 是否已主动登出。主动登出后不会自动重新登录，直到再次调用 {@link #login()}。
+     */
+    private volatile boolean loggedOut;
+
+    /**
+     * 按哈希值查询时每个请求携带的最大哈希数量，100个哈希值约4KB，低于常见的URL长度限制。
+     */
+    private static final int HASH_CHUNK_SIZE = 100;
+
+    /**
+     * 两次增量同步之间的最小间隔（毫秒），间隔内的读取直接使用内存中的种子表。
+     */
+    private static final long SYNC_MIN_INTERVAL_MS = 1000;
+
+    /**
+     * 增量同步的响应ID（rid），为0时qBittorrent返回全量数据。
+     */
+    private long syncRid;
+
+    /**
+     * 最近一次成功同步的时间戳（毫秒）。
+     */
+    private volatile long lastSyncTime;
+
+    /**
+     * 每个种子合并后的原始JSON数据，键为种子哈希值，用于合并maindata返回的部分字段更新。
+     */
+    private final Map<String, ObjectNode> torrentNodes = new HashMap<>();
+
+    /**
+     * 内存中的种子信息表，键为种子哈希值，所有读取方都从该表获取种子信息。
+     * 每次同步后整体替换为新的不可变Map，读取时无需加锁。
+     */
+    private volatile Map<String, QbTorrent> torrentTable = Map.of();
+
+    /**
+     * 获取HTTP客户端，首次调用时创建带连接池的客户端。
+     *
+     * @return HTTP客户端
+     */
+    private CloseableHttpClient httpClient() {
+        CloseableHttpClient current = client;
+        if (current == null) {
+            synchronized (loginLock) {
+                if (client == null) {
+                    client = buildClient();
+                }
+                current = client;
+            }
+        }
+        return current;
+    }
+
+    /**
+     * 创建带连接池的HTTP客户端。
+     * 所有请求共用同一组默认请求头，连接按配置的保持时间复用，过期和空闲连接由后台线程回收。
+     *
+     * @return 新建的HTTP客户端
+     */
+    private CloseableHttpClient buildClient() {
+        TimeValue keepAlive = TimeValue.ofSeconds(qbConfig.getKeepAlive());
+        PoolingHttpClientConnectionManager connectionManager = PoolingHttpClientConnectionManagerBuilder.create()
+                .setMaxConnTotal(qbConfig.getMaxConnections())
+                .setMaxConnPerRoute(qbConfig.getMaxConnections())
+                .setDefaultConnectionConfig(ConnectionConfig.custom()
+                        .setConnectTimeout(Timeout.ofSeconds(qbConfig.getConnectTimeout()))
+                        .setSocketTimeout(Timeout.ofSeconds(qbConfig.getResponseTimeout()))
+                        .setValidateAfterInactivity(TimeValue.ofSeconds(5))
+                        .build())
+                .build();
+
+        return HttpClients.custom()
+                .setConnectionManager(connectionManager)
                 .setDefaultCookieStore(cookieStore)
+                .setDefaultHeaders(defaultHeaders())
+                .setDefaultRequestConfig(RequestConfig.custom()
+                        .setConnectionRequestTimeout(Timeout.ofSeconds(qbConfig.getConnectTimeout()))
+                        .setResponseTimeout(Timeout.ofSeconds(qbConfig.getResponseTimeout()))
+                        .build())
+                .setKeepAliveStrategy((response, context) -> keepAlive)
+                .evictExpiredConnections()
+                .evictIdleConnections(keepAlive)
                 .build();
+    }
+
+    /**
+     * 所有请求共用的默认请求头，Referer 和 Origin 必须与 Host 一致才能通过qBittorrent的CSRF校验。
+     *
+     * @return 默认请求头列表
+     */
+    private List<Header> defaultHeaders() {
+        String host = qbConfig.getHost();
+        return List.of(
+                new BasicHeader(HttpHeaders.REFERER, host),
+                new BasicHeader("Origin", host),
+                new BasicHeader(HttpHeaders.USER_AGENT, "Mozilla/5.0"),
+                new BasicHeader(HttpHeaders.ACCEPT, "application/json"),
+                new BasicHeader(HttpHeaders.ACCEPT_LANGUAGE, "zh-CN,zh;q=0.9,en;q=0.8"));
+    }
+
+    /**
+     * 确保已登录qBittorrent，每个请求发送前调用。
+     * 会话代数为0表示从未登录，此时登录一次；之后的会话失效（403）由 {@link #relogin(long)} 按会话代数处理，
+     * 并发请求不会重复登录。调用 {@link #logout()} 后不再自动登录。
+     *
+     * @throws IOException 如果登录过程中发生IO异常，则抛出此异常
+     */
+    void ensureLoggedIn() throws IOException {
+        if (sessionEpoch == 0 && !loggedOut) {
+            relogin(0);
+        }
+    }
+
+    /**
+     * 在会话失效时重新登录。
+     * 如果在等待登录锁期间其他线程已经完成了登录，则直接复用新会话，不再重复登录。
+     *
+     * @param observedEpoch 调用方发现会话失效时看到的会话代数
+     * @throws IOException 如果登录过程中发生IO异常，则抛出此异常
+     */
+    private void relogin(long observedEpoch) throws IOException {
+        synchronized (loginLock) {
+            if (sessionEpoch != observedEpoch || loggedOut) {
+                return;
+            }
             login();
         }
     }
@@ -70,109 +248,102 @@ public class QbService {
      * @throws IOException 如果登录过程中发生IO异常，则抛出此异常
      */
     public void login() throws IOException {
-        try {
-            log.info("开始登录 qBittorrent，主机: {}", qbConfig.getHost());
-            
-            // 清除之前的 cookie
-            cookieStore.clear();
-            
-            HttpPost request = new HttpPost(qbConfig.getHost() + "/api/v2/auth/login");
-            
-            // 构建表单数据
-            String formData = String.format("username=%s&password=%s", 
-                qbConfig.getUsername(), 
-                qbConfig.getPassword());
-            
-            log.debug("登录请求表单数据: {}", formData);
-            
-            request.setEntity(new StringEntity(formData, ContentType.APPLICATION_FORM_URLENCODED));
-            
-            // 设置请求头，确保 Referer 和 Origin 与 Host 完全匹配
-            String host = qbConfig.getHost();
-            request.setHeader("Host", host.replace("http://", ""));
-            request.setHeader("Referer", host);
-            request.setHeader("Origin", host);
-            request.setHeader("User-Agent", "Mozilla/5.0");
-            request.setHeader("Accept", "application/json");
-            request.setHeader("Accept-Language", "zh-CN,zh;q=0.9,en;q=0.8");
-            request.setHeader("Connection", "keep-alive");
-
-            log.debug("发送登录请求...");
-            try (CloseableHttpResponse response = client.execute(request)) {
-                log.debug("收到登录响应，状态码: {}", response.getCode());
-                
-                // 读取响应内容
-                String responseBody = new String(response.getEntity().getContent().readAllBytes());
-                log.debug("登录响应内容: {}", responseBody);
-                
-                if (response.getCode() == 200) {
-                    // 检查响应内容是否为 "Fails."
-                    if ("Fails.".equals(responseBody.trim())) {
-                        log.error("qBittorrent 登录失败：用户名或密码错误");
-                        throw new IOException("qBittorrent 登录失败：用户名或密码错误");
-                    }
-                    
-                    // 获取并保存 SID cookie
-                    List<Cookie> cookies = cookieStore.getCookies();
-                    log.debug("获取到 cookies: {}", cookies);
-                    
-                    for (Cookie cookie : cookies) {
-                        if ("SID".equals(cookie.getName())) {
-                            sid = cookie.getValue();
-                            log.info("qBittorrent 登录成功，SID: {}", sid);
-                            break;
+        synchronized (loginLock) {
+            try {
+                log.info("开始登录 qBittorrent，主机: {}", qbConfig.getHost());
+
+                // 清除之前的 cookie
+                cookieStore.clear();
+                sid = null;
+
+                HttpPost request = new HttpPost(qbConfig.getHost() + "/api/v2/auth/login");
+                request.setEntity(form(List.of(
+                        new BasicNameValuePair("username", qbConfig.getUsername()),
+                        new BasicNameValuePair("password", qbConfig.getPassword()))));
+
+                log.debug("发送登录请求...");
+                httpClient().execute(request, response -> {
+                    log.debug("收到登录响应，状态码: {}", response.getCode());
+
+                    // 读取响应内容
+                    String responseBody = readBody(response.getEntity());
+                    log.debug("登录响应内容: {}", responseBody);
+
+                    if (response.getCode() == HttpStatus.SC_OK) {
+                        // 检查响应内容是否为 "Fails."
+                        if ("Fails.".equals(responseBody.trim())) {
+                            log.error("qBittorrent 登录失败：用户名或密码错误");
+                            throw new IOException("qBittorrent 登录失败：用户名或密码错误");
                         }
+
+                        // 获取并保存 SID cookie
+                        List<Cookie> cookies = cookieStore.getCookies();
+                        log.debug("获取到 cookies: {}", cookies);
+
+                        for (Cookie cookie : cookies) {
+                            if ("SID".equals(cookie.getName())) {
+                                sid = cookie.getValue();
+                                log.info("qBittorrent 登录成功，SID: {}", sid);
+                                break;
+                            }
+                        }
+
+                        if (sid == null) {
+                            log.warn("未找到 SID cookie，登录可能不完整");
+                            throw new IOException("登录成功但未获取到 SID cookie，请检查 qBittorrent 配置");
+                        }
+                    } else {
+                        log.error("qBittorrent 登录失败: {} - {}", response.getCode(), responseBody);
+
+                        // 检查是否是 IP 被封禁
+                        if (responseBody.contains("身份认证失败次数过多") || responseBody.contains("IP 地址已被封禁")) {
+                            log.error("qBittorrent IP 被封禁，请等待一段时间后再试");
+                            throw new IOException("qBittorrent IP 被封禁，请等待一段时间后再试");
+                        }
+
+                        // 检查是否是用户名或密码错误
+                        if (responseBody.contains("用户名或密码错误")) {
+                            log.error("qBittorrent 用户名或密码错误");
+                            throw new IOException("qBittorrent 用户名或密码错误");
+                        }
+
+                        throw new IOException("qBittorrent 登录失败: " + response.getCode() + " - " + responseBody);
                     }
-                    
-                    if (sid == null) {
-                        log.warn("未找到 SID cookie，登录可能不完整");
-                        throw new IOException("登录成功但未获取到 SID cookie，请检查 qBittorrent 配置");
-                    }
-                } else {
-                    log.error("qBittorrent 登录失败: {} - {}", response.getCode(), responseBody);
-                    
-                    // 检查是否是 IP 被封禁
-                    if (responseBody.contains("身份认证失败次数过多") || responseBody.contains("IP 地址已被封禁")) {
-                        log.error("qBittorrent IP 被封禁，请等待一段时间后再试");
-                        throw new IOException("qBittorrent IP 被封禁，请等待一段时间后再试");
-                    }
-                    
-                    // 检查是否是用户名或密码错误
-                    if (responseBody.contains("用户名或密码错误")) {
-                        log.error("qBittorrent 用户名或密码错误");
-                        throw new IOException("qBittorrent 用户名或密码错误");
-                    }
-                    
-                    throw new IOException("qBittorrent 登录失败: " + response.getCode() + " - " + responseBody);
-                }
+                    return null;
+                });
+
+                loggedOut = false;
+                sessionEpoch++;
+            } catch (Exception e) {
+                log.error("qBittorrent 登录失败", e);
+                throw e;
             }
-        } catch (Exception e) {
-            log.error("qBittorrent 登录失败", e);
-            throw e;
         }
     }
 
     /**
      * 从qBittorrent登出。
-     * 清除会话信息并关闭HTTP客户端。
+     * 清除会话信息，登出后不会自动重新登录，直到再次调用 {@link #login()}。
      *
      * @throws IOException 如果登出过程中发生IO异常，则抛出此异常
      */
     public void logout() throws IOException {
         try {
-            ensureLoggedIn();
             HttpPost request = new HttpPost(qbConfig.getHost() + "/api/v2/auth/logout");
-            request.setHeader("Referer", qbConfig.getHost());
-            request.setHeader("Origin", qbConfig.getHost());
-
-            try (CloseableHttpResponse response = client.execute(request)) {
-                if (response.getCode() == 200) {
-                    log.info("qBittorrent 登出成功");
+            int code = execute(request, response -> {
+                EntityUtils.consume(response.getEntity());
+                return response.getCode();
+            });
+            if (code == HttpStatus.SC_OK) {
+                log.info("qBittorrent 登出成功");
+                synchronized (loginLock) {
+                    loggedOut = true;
                     sid = null;
                     cookieStore.clear();
-                } else {
-                    throw new IOException("qBittorrent 登出失败: " + response.getCode());
                 }
+                resetSyncState();
+            } else {
+                throw new IOException("qBittorrent 登出失败: " + code);
             }
         } catch (Exception e) {
             log.error("qBittorrent 登出失败", e);
@@ -181,42 +352,134 @@ public class QbService {
     }
 
     /**
-     * 向qBittorrent添加磁力链接。
+     * 关闭HTTP客户端并释放连接池。
      *
-     * @param magnetUrl 磁力链接
-     * @return 如果添加成功则返回true，否则返回false
+     * @throws IOException 如果关闭过程中发生IO异常，则抛出此异常
      */
-    public boolean addTorrent(String magnetUrl) {
+    @PreDestroy
+    public void close() throws IOException {
+        CloseableHttpClient current = client;
+        if (current != null) {
+            current.close();
+            log.info("qBittorrent HTTP客户端已关闭");
+        }
+    }
+
+    /**
+     * 执行请求，会话失效（403）时自动重新登录并重试一次。
+     *
+     * @param request 要执行的请求，请求体必须可重复读取
+     * @param handler 响应处理器
+     * @param <T>     处理结果类型
+     * @return 响应处理器的处理结果
+     * @throws IOException 如果请求过程中发生IO异常，则抛出此异常
+     */
+    @SuppressWarnings("unchecked")
+    private <T> T execute(ClassicHttpRequest request, HttpClientResponseHandler<T> handler) throws IOException {
+        ensureLoggedIn();
+        long epoch = sessionEpoch;
+        Object result = httpClient().execute(request, response -> {
+            if (response.getCode() == HttpStatus.SC_FORBIDDEN && !loggedOut) {
+                EntityUtils.consume(response.getEntity());
+                return SESSION_EXPIRED;
+            }
+            return handler.handleResponse(response);
+        });
+        if (result == SESSION_EXPIRED) {
+            log.warn("qBittorrent 会话已失效，重新登录后重试: {}", request.getPath());
+            relogin(epoch);
+            return httpClient().execute(request, handler);
+        }
+        return (T) result;
+    }
+
+    /**
+     * 以表单形式提交一个操作请求。
+     *
+     * @param path    API路径
+     * @param action  操作名称，用于日志
+     * @param subject 操作对象，用于日志
+     * @param params  表单参数
+     * @return 如果操作成功则返回true，否则返回false
+     */
+    private boolean postAction(String path, String action, Object subject, NameValuePair... params) {
         try {
-            ensureLoggedIn();
-            HttpPost request = new HttpPost(qbConfig.getHost() + "/api/v2/torrents/add");
-            
-            // 构建表单数据
-            String formData = String.format("urls=%s&category=%s&tags=%s&savepath=%s", 
-                magnetUrl,
-                qbConfig.getCategory(),
-                qbConfig.getTag(),
-                qbConfig.getDownloadPath());
-            
-            request.setEntity(new StringEntity(formData, ContentType.APPLICATION_FORM_URLENCODED));
-            request.setHeader("Referer", qbConfig.getHost());
-            request.setHeader("Origin", qbConfig.getHost());
-
-            try (CloseableHttpResponse response = client.execute(request)) {
-                if (response.getCode() == 200) {
-                    log.info("添加种子成功: {}", magnetUrl);
+            HttpPost request = new HttpPost(qbConfig.getHost() + path);
+            request.setEntity(form(List.of(params)));
+            return execute(request, response -> {
+                EntityUtils.consume(response.getEntity());
+                if (response.getCode() == HttpStatus.SC_OK) {
+                    log.info("{}成功: {}", action, subject);
                     return true;
                 } else {
-                    log.error("添加种子失败: {}", response.getCode());
+                    log.error("{}失败: {}", action, response.getCode());
                     return false;
                 }
-            }
+            });
         } catch (Exception e) {
-            log.error("添加种子失败", e);
+            log.error("{}失败", action, e);
             return false;
         }
     }
 
+    /**
+     * 构建URL编码的表单请求体。
+     *
+     * @param params 表单参数
+     * @return 表单请求体
+     */
+    private static UrlEncodedFormEntity form(List<NameValuePair> params) {
+        return new UrlEncodedFormEntity(params, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 以UTF-8读取响应体内容。
+     *
+     * @param entity 响应实体
+     * @return 响应体字符串，实体为空时返回空字符串
+     * @throws IOException 如果读取过程中发生IO异常，则抛出此异常
+     */
+    private static String readBody(HttpEntity entity) throws IOException {
+        if (entity == null) {
+            return "";
+        }
+        try {
+            return EntityUtils.toString(entity, StandardCharsets.UTF_8);
+        } catch (ParseException e) {
+            throw new IOException("读取响应内容失败", e);
+        }
+    }
+
+    /**
+     * 根据API路径和查询参数构建请求URI。
+     *
+     * @param path   API路径
+     * @param params 查询参数
+     * @return 请求URI
+     * @throws IOException 如果主机地址格式不正确，则抛出此异常
+     */
+    private URI uri(String path, NameValuePair... params) throws IOException {
+        try {
+            return new URIBuilder(qbConfig.getHost() + path).addParameters(List.of(params)).build();
+        } catch (URISyntaxException e) {
+            throw new IOException("qBittorrent 地址格式不正确: " + qbConfig.getHost(), e);
+        }
+    }
+
+    /**
+     * 向qBittorrent添加磁力链接。
+     *
+     * @param magnetUrl 磁力链接
+     * @return 如果添加成功则返回true，否则返回false
+     */
+    public boolean addTorrent(String magnetUrl) {
+        return postAction("/api/v2/torrents/add", "添加种子", magnetUrl,
+                new BasicNameValuePair("urls", magnetUrl),
+                new BasicNameValuePair("category", qbConfig.getCategory()),
+                new BasicNameValuePair("tags", qbConfig.getTag()),
+                new BasicNameValuePair("savepath", qbConfig.getDownloadPath()));
+    }
+
     /**
      * 向qBittorrent添加种子文件。
      *
@@ -225,26 +488,40 @@ public class QbService {
      */
     public boolean addTorrent(File torrentFile) {
         try {
-            ensureLoggedIn();
+            return addTorrent(Files.readAllBytes(torrentFile.toPath()), torrentFile.getName());
+        } catch (IOException e) {
+            log.error("读取种子文件失败: {}", torrentFile, e);
+            return false;
+        }
+    }
+
+    /**
+     * 以multipart表单上传内存中的种子文件内容，不经过磁盘。
+     *
+     * @param torrentData 种子文件内容
+     * @param fileName    种子文件名，只用于表单和日志
+     * @return 如果添加成功则返回true，否则返回false
+     */
+    public boolean addTorrent(byte[] torrentData, String fileName) {
+        try {
             HttpPost request = new HttpPost(qbConfig.getHost() + "/api/v2/torrents/add");
             MultipartEntityBuilder builder = MultipartEntityBuilder.create();
-            builder.addBinaryBody("torrents", torrentFile, ContentType.APPLICATION_OCTET_STREAM, torrentFile.getName());
+            builder.addBinaryBody("torrents", torrentData, ContentType.APPLICATION_OCTET_STREAM, fileName);
             builder.addTextBody("category", qbConfig.getCategory());
             builder.addTextBody("tags", qbConfig.getTag());
             builder.addTextBody("savepath", qbConfig.getDownloadPath());
             request.setEntity(builder.build());
-            request.setHeader("Referer", qbConfig.getHost());
-            request.setHeader("Origin", qbConfig.getHost());
 
-            try (CloseableHttpResponse response = client.execute(request)) {
-                if (response.getCode() == 200) {
-                    log.info("添加种子文件成功: {}", torrentFile.getName());
+            return execute(request, response -> {
+                EntityUtils.consume(response.getEntity());
+                if (response.getCode() == HttpStatus.SC_OK) {
+                    log.info("添加种子文件成功: {}", fileName);
                     return true;
                 } else {
                     log.error("添加种子文件失败: {}", response.getCode());
                     return false;
                 }
-            }
+            });
         } catch (Exception e) {
             log.error("添加种子文件失败", e);
             return false;
@@ -265,74 +542,254 @@ public class QbService {
      * @return 种子列表
      * @throws IOException 如果获取种子列表过程中发生IO异常，则抛出此异常
      */
-    public List<QbTorrent> getTorrents(String filter, String category, String tag, 
+    public List<QbTorrent> getTorrents(String filter, String category, String tag,
             String sort, Boolean reverse, Integer limit, Integer offset, String hashes) throws IOException {
-        ensureLoggedIn();
-        
         // 构建查询参数
-        StringBuilder urlBuilder = new StringBuilder(qbConfig.getHost() + "/api/v2/torrents/info");
-        boolean firstParam = true;
-        
+        List<NameValuePair> params = new ArrayList<>();
         if (filter != null) {
-            urlBuilder.append(firstParam ? "?" : "&").append("filter=").append(filter);
-            firstParam = false;
+            params.add(new BasicNameValuePair("filter", filter));
         }
         if (category != null) {
-            urlBuilder.append(firstParam ? "?" : "&").append("category=").append(category);
-            firstParam = false;
+            params.add(new BasicNameValuePair("category", category));
         }
         if (tag != null) {
-            urlBuilder.append(firstParam ? "?" : "&").append("tag=").append(tag);
-            firstParam = false;
+            params.add(new BasicNameValuePair("tag", tag));
         }
         if (sort != null) {
-            urlBuilder.append(firstParam ? "?" : "&").append("sort=").append(sort);
-            firstParam = false;
+            params.add(new BasicNameValuePair("sort", sort));
         }
         if (reverse != null) {
-            urlBuilder.append(firstParam ? "?" : "&").append("reverse=").append(reverse);
-            firstParam = false;
+            params.add(new BasicNameValuePair("reverse", reverse.toString()));
         }
         if (limit != null) {
-            urlBuilder.append(firstParam ? "?" : "&").append("limit=").append(limit);
-            firstParam = false;
+            params.add(new BasicNameValuePair("limit", limit.toString()));
         }
         if (offset != null) {
-            urlBuilder.append(firstParam ? "?" : "&").append("offset=").append(offset);
-            firstParam = false;
+            params.add(new BasicNameValuePair("offset", offset.toString()));
         }
         if (hashes != null) {
-            urlBuilder.append(firstParam ? "?" : "&").append("hashes=").append(hashes);
-        }
-        
-        HttpGet request = new HttpGet(urlBuilder.toString());
-        request.setHeader("Referer", qbConfig.getHost());
-        request.setHeader("Origin", qbConfig.getHost());
-        request.setHeader("User-Agent", "Mozilla/5.0");
-        request.setHeader("Accept", "application/json");
-        request.setHeader("Accept-Language", "zh-CN,zh;q=0.9,en;q=0.8");
-        request.setHeader("Connection", "keep-alive");
-        
-        try (CloseableHttpResponse response = client.execute(request)) {
-            if (response.getCode() == 200) {
+            params.add(new BasicNameValuePair("hashes", hashes));
+        }
+
+        HttpGet request = new HttpGet(uri("/api/v2/torrents/info", params.toArray(new NameValuePair[0])));
+        return execute(request, response -> {
+            if (response.getCode() == HttpStatus.SC_OK) {
                 QbTorrent[] torrents = objectMapper.readValue(response.getEntity().getContent(), QbTorrent[].class);
                 return List.of(torrents);
             } else {
-                String responseBody = new String(response.getEntity().getContent().readAllBytes());
+                String responseBody = readBody(response.getEntity());
                 log.error("获取种子列表失败: {} - {}", response.getCode(), responseBody);
                 throw new IOException("获取种子列表失败: " + response.getCode() + " - " + responseBody);
             }
+        });
+    }
+
+    /**
+     * 按哈希值批量获取种子信息。
+     * 哈希值按 {@link #HASH_CHUNK_SIZE} 分组，每组发送一次 /torrents/info?hashes= 请求，避免URL过长。
+     *
+     * @param hashes 种子的哈希值集合
+     * @return 找到的种子列表，qBittorrent中不存在的哈希值会被忽略
+     * @throws IOException 如果获取种子列表过程中发生IO异常，则抛出此异常
+     */
+    public List<QbTorrent> getTorrentsByHashes(Collection<String> hashes) throws IOException {
+        List<String> all = List.copyOf(hashes);
+        List<QbTorrent> result = new ArrayList<>(all.size());
+        for (int from = 0; from < all.size(); from += HASH_CHUNK_SIZE) {
+            List<String> chunk = all.subList(from, Math.min(from + HASH_CHUNK_SIZE, all.size()));
+            result.addAll(getTorrents(null, null, null, null, null, null, null, joinHashes(chunk)));
         }
+        return result;
+    }
+
+    /**
+     * 以流式方式读取种子列表到列式快照中，只解析调用方需要的字段。
+     * 不创建QbTorrent对象，传入上一次的快照即可复用其中已分配的数组。
+     * 指定哈希值时与 {@link #getTorrentsByHashes} 一样按 {@link #HASH_CHUNK_SIZE} 分组请求，各组结果合并到同一个快照中。
+     *
+     * @param fields 需要读取的字段，哈希值总是会被读取
+     * @param hashes 种子的哈希值集合；为null时读取全部种子
+     * @param reuse  要复用的快照，为null时创建新快照
+     * @return 填充后的快照
+     * @throws IOException 如果获取种子列表过程中发生IO异常，则抛出此异常
+     */
+    public TorrentSnapshot getTorrentSnapshot(Set<TorrentField> fields, Collection<String> hashes, TorrentSnapshot reuse)
+            throws IOException {
+        TorrentSnapshot snapshot = reuse != null ? reuse : new TorrentSnapshot();
+        snapshot.clear();
+        if (hashes == null) {
+            appendSnapshot(snapshot, fields, uri("/api/v2/torrents/info"));
+            return snapshot;
+        }
+        List<String> all = List.copyOf(hashes);
+        for (int from = 0; from < all.size(); from += HASH_CHUNK_SIZE) {
+            List<String> chunk = all.subList(from, Math.min(from + HASH_CHUNK_SIZE, all.size()));
+            appendSnapshot(snapshot, fields, uri("/api/v2/torrents/info", new BasicNameValuePair("hashes", joinHashes(chunk))));
+        }
+        return snapshot;
+    }
+
+    /**
+     * 请求一次种子列表，并将结果追加到快照中。
+     *
+     * @param snapshot 要追加的快照
+     * @param fields   需要读取的字段
+     * @param uri      请求URI
+     * @throws IOException 如果获取种子列表过程中发生IO异常，则抛出此异常
+     */
+    private void appendSnapshot(TorrentSnapshot snapshot, Set<TorrentField> fields, URI uri) throws IOException {
+        execute(new HttpGet(uri), response -> {
+            if (response.getCode() == HttpStatus.SC_OK) {
+                try (JsonParser parser = objectMapper.getFactory().createParser(response.getEntity().getContent())) {
+                    snapshot.append(parser, fields);
+                }
+                return snapshot;
+            } else {
+                String responseBody = readBody(response.getEntity());
+                log.error("获取种子列表失败: {} - {}", response.getCode(), responseBody);
+                throw new IOException("获取种子列表失败: " + response.getCode() + " - " + responseBody);
+            }
+        });
     }
 
     /**
      * 获取qBittorrent中的所有种子列表。
+     * 数据来自通过 /api/v2/sync/maindata 增量同步维护的内存种子表，而不是每次拉取完整的 /torrents/info 列表。
      *
      * @return 种子列表
-     * @throws IOException 如果获取种子列表过程中发生IO异常，则抛出此异常
+     * @throws IOException 如果同步种子数据过程中发生IO异常，则抛出此异常
      */
     public List<QbTorrent> getTorrents() throws IOException {
-        return getTorrents(null, null, null, null, null, null, null, null);
+        refreshTorrentTable();
+        return List.copyOf(torrentTable.values());
+    }
+
+    /**
+     * 从内存种子表中获取指定哈希值的种子信息，必要时先进行一次增量同步。
+     *
+     * @param hash 种子的哈希值
+     * @return 种子信息对象，如果不存在则返回null
+     * @throws IOException 如果同步种子数据过程中发生IO异常，则抛出此异常
+     */
+    public QbTorrent getCachedTorrent(String hash) throws IOException {
+        refreshTorrentTable();
+        return hash == null ? null : torrentTable.get(hash.toLowerCase());
+    }
+
+    /**
+     * 在距离上次同步超过最小间隔时执行一次增量同步，避免多个读取方在同一时刻重复请求。
+     *
+     * @throws IOException 如果同步种子数据过程中发生IO异常，则抛出此异常
+     */
+    private void refreshTorrentTable() throws IOException {
+        publishRemoved(sync(true));
+    }
+
+    /**
+     * 通过 /api/v2/sync/maindata 接口与qBittorrent进行一次增量同步。
+     * 首次请求（rid=0）获取全量数据，之后只获取自上次rid以来发生变化的字段，并合并到内存种子表中。
+     *
+     * @throws IOException 如果同步过程中发生IO异常，则抛出此异常
+     */
+    public void syncMainData() throws IOException {
+        publishRemoved(sync(false));
+    }
+
+    /**
+     * 持有种子表的锁执行一次增量同步。被删除的种子只返回给调用方，由调用方在释放锁之后发布事件，
+     * 事件监听器（例如删除数据库中的文件清单）不会阻塞其他读取种子表的线程。
+     *
+     * @param onlyIfStale 为true时只在距离上次同步超过最小间隔时同步
+     * @return 本次同步发现的被删除种子的哈希值
+     * @throws IOException 如果同步过程中发生IO异常，则抛出此异常
+     */
+    private synchronized List<String> sync(boolean onlyIfStale) throws IOException {
+        if (onlyIfStale && System.currentTimeMillis() - lastSyncTime < SYNC_MIN_INTERVAL_MS) {
+            return List.of();
+        }
+        HttpGet request = new HttpGet(uri("/api/v2/sync/maindata",
+                new BasicNameValuePair("rid", String.valueOf(syncRid))));
+        JsonNode root = execute(request, response -> {
+            if (response.getCode() == HttpStatus.SC_OK) {
+                return objectMapper.readTree(response.getEntity().getContent());
+            } else {
+                String responseBody = readBody(response.getEntity());
+                log.error("同步种子数据失败: {} - {}", response.getCode(), responseBody);
+                throw new IOException("同步种子数据失败: " + response.getCode() + " - " + responseBody);
+            }
+        });
+        List<String> removed = applySyncData(root);
+        lastSyncTime = System.currentTimeMillis();
+        return removed;
+    }
+
+    /**
+     * 发布种子删除事件，必须在释放种子表的锁之后调用。
+     *
+     * @param removed 被删除种子的哈希值
+     */
+    private void publishRemoved(List<String> removed) {
+        if (!removed.isEmpty()) {
+            eventPublisher.publishEvent(new TorrentRemovedEvent(this, removed));
+        }
+    }
+
+    /**
+     * 将一次maindata响应合并到内存种子表。
+     * 全量更新时重建整个表；增量更新时只合并发生变化的字段，并移除已删除的种子。
+     *
+     * @param root maindata接口返回的JSON根节点
+     * @return 被删除种子的哈希值
+     * @throws IOException 如果种子数据无法转换为QbTorrent对象，则抛出此异常
+     */
+    private List<String> applySyncData(JsonNode root) throws IOException {
+        boolean fullUpdate = root.path("full_update").asBoolean(false);
+        if (fullUpdate) {
+            torrentNodes.clear();
+        }
+        Map<String, QbTorrent> table = fullUpdate ? new HashMap<>() : new HashMap<>(torrentTable);
+
+        Iterator<Map.Entry<String, JsonNode>> changed = root.path("torrents").fields();
+        while (changed.hasNext()) {
+            Map.Entry<String, JsonNode> entry = changed.next();
+            if (!entry.getValue().isObject()) {
+                continue;
+            }
+            String hash = entry.getKey();
+            ObjectNode node = torrentNodes.computeIfAbsent(hash, k -> objectMapper.createObjectNode());
+            node.setAll((ObjectNode) entry.getValue());
+            // maindata中的种子对象不包含hash字段，哈希值以键的形式给出
+            node.put("hash", hash);
+            table.put(hash, objectMapper.treeToValue(node, QbTorrent.class));
+        }
+
+        List<String> removedHashes = new ArrayList<>();
+        for (JsonNode removed : root.path("torrents_removed")) {
+            torrentNodes.remove(removed.asText());
+            if (table.remove(removed.asText()) != null) {
+                removedHashes.add(removed.asText());
+            }
+        }
+        if (fullUpdate) {
+            // 全量更新不包含 torrents_removed，与上一次的种子表比较得到被删除的种子
+            torrentTable.keySet().stream().filter(hash -> !table.containsKey(hash)).forEach(removedHashes::add);
+        }
+
+        syncRid = root.path("rid").asLong(syncRid);
+        torrentTable = Collections.unmodifiableMap(table);
+        log.debug("同步种子数据完成: rid={}, 全量={}, 变化={}, 当前种子数={}",
+                syncRid, fullUpdate, root.path("torrents").size(), table.size());
+        return removedHashes;
+    }
+
+    /**
+     * 清空增量同步状态，下一次同步将重新获取全量数据。
+     */
+    private synchronized void resetSyncState() {
+        syncRid = 0;
+        lastSyncTime = 0;
+        torrentNodes.clear();
+        torrentTable = Map.of();
     }
 
     /**
@@ -343,26 +800,67 @@ public class QbService {
      * @throws IOException 如果获取种子信息过程中发生IO异常，则抛出此异常
      */
     public QbTorrent getTorrent(String hash) throws IOException {
-        ensureLoggedIn();
-        HttpGet request = new HttpGet(qbConfig.getHost() + "/api/v2/torrents/properties?hash=" + hash);
-        request.setHeader("Referer", qbConfig.getHost());
-        request.setHeader("Origin", qbConfig.getHost());
-        request.setHeader("User-Agent", "Mozilla/5.0");
-        request.setHeader("Accept", "application/json");
-        request.setHeader("Accept-Language", "zh-CN,zh;q=0.9,en;q=0.8");
-        request.setHeader("Connection", "keep-alive");
-        
-        try (CloseableHttpResponse response = client.execute(request)) {
-            if (response.getCode() == 200) {
+        HttpGet request = new HttpGet(uri("/api/v2/torrents/properties", new BasicNameValuePair("hash", hash)));
+        return execute(request, response -> {
+            if (response.getCode() == HttpStatus.SC_OK) {
                 return objectMapper.readValue(response.getEntity().getContent(), QbTorrent.class);
-            } else if (response.getCode() == 404) {
+            } else if (response.getCode() == HttpStatus.SC_NOT_FOUND) {
+                EntityUtils.consume(response.getEntity());
                 throw new IOException("种子未找到: " + hash);
             } else {
-                String responseBody = new String(response.getEntity().getContent().readAllBytes());
+                String responseBody = readBody(response.getEntity());
                 log.error("获取种子信息失败: {} - {}", response.getCode(), responseBody);
                 throw new IOException("获取种子信息失败: " + response.getCode() + " - " + responseBody);
             }
+        });
+    }
+
+    /**
+     * 获取qBittorrent中指定种子包含的文件列表。磁力链接添加的种子在获取到元数据之前返回空列表。
+     *
+     * @param hash 种子的哈希值
+     * @return 文件列表
+     * @throws IOException 如果获取文件列表过程中发生IO异常，则抛出此异常
+     */
+    public List<QbTorrentFile> getTorrentFiles(String hash) throws IOException {
+        HttpGet request = new HttpGet(uri("/api/v2/torrents/files", new BasicNameValuePair("hash", hash)));
+        return execute(request, response -> {
+            if (response.getCode() == HttpStatus.SC_OK) {
+                List<QbTorrentFile> files = objectMapper.readValue(response.getEntity().getContent(),
+                        objectMapper.getTypeFactory().constructCollectionType(List.class, QbTorrentFile.class));
+                // 旧版本的qBittorrent不返回index字段，文件序号即列表中的位置
+                for (int i = 0; i < files.size(); i++) {
+                    files.get(i).setIndex(i);
+                }
+                return files;
+            } else if (response.getCode() == HttpStatus.SC_NOT_FOUND) {
+                EntityUtils.consume(response.getEntity());
+                throw new IOException("种子未找到: " + hash);
+            } else {
+                String responseBody = readBody(response.getEntity());
+                log.error("获取种子文件列表失败: {} - {}", response.getCode(), responseBody);
+                throw new IOException("获取种子文件列表失败: " + response.getCode() + " - " + responseBody);
+            }
+        });
+    }
+
+    /**
+     * 在一次请求中设置种子中多个文件的下载优先级。
+     *
+     * @param hash     种子的哈希值
+     * @param indexes  文件序号
+     * @param priority 下载优先级，0表示不下载
+     * @return 如果设置成功则返回true，否则返回false
+     */
+    public boolean setFilePriority(String hash, Collection<Integer> indexes, int priority) {
+        if (indexes.isEmpty()) {
+            return true;
         }
+        String ids = String.join("|", indexes.stream().map(String::valueOf).toList());
+        return postAction("/api/v2/torrents/filePrio", "设置文件优先级", hash + " [" + ids + "] -> " + priority,
+                new BasicNameValuePair("hash", hash),
+                new BasicNameValuePair("id", ids),
+                new BasicNameValuePair("priority", String.valueOf(priority)));
     }
 
     /**
@@ -373,32 +871,27 @@ public class QbService {
      * @return 如果删除成功则返回true，否则返回false
      */
     public boolean deleteTorrent(String hash, boolean deleteFiles) {
-        try {
-            ensureLoggedIn();
-            HttpPost request = new HttpPost(qbConfig.getHost() + "/api/v2/torrents/delete");
-            
-            // 构建表单数据
-            String formData = String.format("hashes=%s&deleteFiles=%s", 
-                hash,
-                deleteFiles);
-            
-            request.setEntity(new StringEntity(formData, ContentType.APPLICATION_FORM_URLENCODED));
-            request.setHeader("Referer", qbConfig.getHost());
-            request.setHeader("Origin", qbConfig.getHost());
-
-            try (CloseableHttpResponse response = client.execute(request)) {
-                if (response.getCode() == 200) {
-                    log.info("删除种子成功: {}", hash);
-                    return true;
-                } else {
-                    log.error("删除种子失败: {}", response.getCode());
-                    return false;
-                }
-            }
-        } catch (Exception e) {
-            log.error("删除种子失败", e);
-            return false;
+        return deleteTorrents(List.of(hash), deleteFiles);
+    }
+
+    /**
+     * 在一次请求中从qBittorrent删除多个种子。
+     *
+     * @param hashes 种子的哈希值集合
+     * @param deleteFiles 是否同时删除种子文件
+     * @return 如果删除成功则返回true，否则返回false
+     */
+    public boolean deleteTorrents(Collection<String> hashes, boolean deleteFiles) {
+        if (hashes.isEmpty()) {
+            return true;
+        }
+        boolean deleted = postAction("/api/v2/torrents/delete", "删除种子", joinHashes(hashes),
+                new BasicNameValuePair("hashes", joinHashes(hashes)),
+                new BasicNameValuePair("deleteFiles", String.valueOf(deleteFiles)));
+        if (deleted) {
+            eventPublisher.publishEvent(new TorrentRemovedEvent(this, hashes));
         }
+        return deleted;
     }
 
     /**
@@ -408,30 +901,21 @@ public class QbService {
      * @return 如果暂停成功则返回true，否则返回false
      */
     public boolean pauseTorrent(String hash) {
-        try {
-            ensureLoggedIn();
-            HttpPost request = new HttpPost(qbConfig.getHost() + "/api/v2/torrents/pause");
-            
-            // 构建表单数据
-            String formData = String.format("hashes=%s", hash);
-            
-            request.setEntity(new StringEntity(formData, ContentType.APPLICATION_FORM_URLENCODED));
-            request.setHeader("Referer", qbConfig.getHost());
-            request.setHeader("Origin", qbConfig.getHost());
-
-            try (CloseableHttpResponse response = client.execute(request)) {
-                if (response.getCode() == 200) {
-                    log.info("暂停种子成功: {}", hash);
-                    return true;
-                } else {
-                    log.error("暂停种子失败: {}", response.getCode());
-                    return false;
-                }
-            }
-        } catch (Exception e) {
-            log.error("暂停种子失败", e);
-            return false;
+        return pauseTorrents(List.of(hash));
+    }
+
+    /**
+     * 在一次请求中暂停多个种子。
+     *
+     * @param hashes 种子的哈希值集合
+     * @return 如果暂停成功则返回true，否则返回false
+     */
+    public boolean pauseTorrents(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return true;
         }
+        return postAction("/api/v2/torrents/pause", "暂停种子", joinHashes(hashes),
+                new BasicNameValuePair("hashes", joinHashes(hashes)));
     }
 
     /**
@@ -441,30 +925,21 @@ public class QbService {
      * @return 如果恢复成功则返回true，否则返回false
      */
     public boolean resumeTorrent(String hash) {
-        try {
-            ensureLoggedIn();
-            HttpPost request = new HttpPost(qbConfig.getHost() + "/api/v2/torrents/resume");
-            
-            // 构建表单数据
-            String formData = String.format("hashes=%s", hash);
-            
-            request.setEntity(new StringEntity(formData, ContentType.APPLICATION_FORM_URLENCODED));
-            request.setHeader("Referer", qbConfig.getHost());
-            request.setHeader("Origin", qbConfig.getHost());
-
-            try (CloseableHttpResponse response = client.execute(request)) {
-                if (response.getCode() == 200) {
-                    log.info("恢复种子成功: {}", hash);
-                    return true;
-                } else {
-                    log.error("恢复种子失败: {}", response.getCode());
-                    return false;
-                }
-            }
-        } catch (Exception e) {
-            log.error("恢复种子失败", e);
-            return false;
+        return resumeTorrents(List.of(hash));
+    }
+
+    /**
+     * 在一次请求中恢复多个种子。
+     *
+     * @param hashes 种子的哈希值集合
+     * @return 如果恢复成功则返回true，否则返回false
+     */
+    public boolean resumeTorrents(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return true;
         }
+        return postAction("/api/v2/torrents/resume", "恢复种子", joinHashes(hashes),
+                new BasicNameValuePair("hashes", joinHashes(hashes)));
     }
 
     /**
@@ -475,30 +950,23 @@ public class QbService {
      * @return 如果添加标签成功则返回true，否则返回false
      */
     public boolean addTags(String hash, String tags) {
-        try {
-            ensureLoggedIn();
-            HttpPost request = new HttpPost(qbConfig.getHost() + "/api/v2/torrents/addTags");
-            
-            // 构建表单数据
-            String formData = String.format("hashes=%s&tags=%s", hash, tags);
-            
-            request.setEntity(new StringEntity(formData, ContentType.APPLICATION_FORM_URLENCODED));
-            request.setHeader("Referer", qbConfig.getHost());
-            request.setHeader("Origin", qbConfig.getHost());
-
-            try (CloseableHttpResponse response = client.execute(request)) {
-                if (response.getCode() == 200) {
-                    log.info("添加标签成功: {} -> {}", hash, tags);
-                    return true;
-                } else {
-                    log.error("添加标签失败: {}", response.getCode());
-                    return false;
-                }
-            }
-        } catch (Exception e) {
-            log.error("添加标签失败", e);
-            return false;
+        return addTags(List.of(hash), tags);
+    }
+
+    /**
+     * 在一次请求中为多个种子添加相同的标签。
+     *
+     * @param hashes 种子的哈希值集合
+     * @param tags 要添加的标签
+     * @return 如果添加标签成功则返回true，否则返回false
+     */
+    public boolean addTags(Collection<String> hashes, String tags) {
+        if (hashes.isEmpty()) {
+            return true;
         }
+        return postAction("/api/v2/torrents/addTags", "添加标签", joinHashes(hashes) + " -> " + tags,
+                new BasicNameValuePair("hashes", joinHashes(hashes)),
+                new BasicNameValuePair("tags", tags));
     }
 
     /**
@@ -509,29 +977,32 @@ public class QbService {
      * @return 如果移除标签成功则返回true，否则返回false
      */
     public boolean removeTags(String hash, String tags) {
-        try {
-            ensureLoggedIn();
-            HttpPost request = new HttpPost(qbConfig.getHost() + "/api/v2/torrents/removeTags");
-            
-            // 构建表单数据
-            String formData = String.format("hashes=%s&tags=%s", hash, tags);
-            
-            request.setEntity(new StringEntity(formData, ContentType.APPLICATION_FORM_URLENCODED));
-            request.setHeader("Referer", qbConfig.getHost());
-            request.setHeader("Origin", qbConfig.getHost());
-
-            try (CloseableHttpResponse response = client.execute(request)) {
-                if (response.getCode() == 200) {
-                    log.info("移除标签成功: {} -> {}", hash, tags);
-                    return true;
-                } else {
-                    log.error("移除标签失败: {}", response.getCode());
-                    return false;
-                }
-            }
-        } catch (Exception e) {
-            log.error("移除标签失败", e);
-            return false;
+        return removeTags(List.of(hash), tags);
+    }
+
+    /**
+     * 在一次请求中从多个种子移除相同的标签。
+     *
+     * @param hashes 种子的哈希值集合
+     * @param tags 要移除的标签
+     * @return 如果移除标签成功则返回true，否则返回false
+     */
+    public boolean removeTags(Collection<String> hashes, String tags) {
+        if (hashes.isEmpty()) {
+            return true;
         }
+        return postAction("/api/v2/torrents/removeTags", "移除标签", joinHashes(hashes) + " -> " + tags,
+                new BasicNameValuePair("hashes", joinHashes(hashes)),
+                new BasicNameValuePair("tags", tags));
+    }
+
+    /**
+     * 将多个哈希值拼接为qBittorrent接口要求的 a|b|c 格式。
+     *
+     * @param hashes 种子的哈希值集合
+     * @return 用 | 分隔的哈希值字符串
+     */
+    static String joinHashes(Collection<String> hashes) {
+        return String.join("|", hashes);
     }
-} 
\ No newline at end of file
+}
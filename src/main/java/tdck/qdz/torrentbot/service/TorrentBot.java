@@ -3,6 +3,8 @@ package tdck.qdz.torrentbot.service;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
 import org.springframework.stereotype.Component;
 import org.telegram.telegrambots.bots.TelegramLongPollingBot;
 import org.telegram.telegrambots.meta.api.methods.GetFile;
@@ -18,14 +20,16 @@ import tdck.qdz.torrentbot.model.TorrentTask;
 import tdck.qdz.torrentbot.event.DownloadCompleteEvent;
 import tdck.qdz.torrentbot.event.AddTorrentEvent;
 import tdck.qdz.torrentbot.event.ListTasksEvent;
+import tdck.qdz.torrentbot.event.OrganizeRequestEvent;
+import tdck.qdz.torrentbot.util.InfoHash;
 import org.springframework.context.annotation.Lazy;
 
 import java.io.IOException;
 import java.io.InputStream;
-import java.nio.file.Files;
+import java.net.URI;
+import java.net.URLConnection;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.StandardCopyOption;
 import java.time.LocalDateTime;
 import java.util.List;
 import java.util.regex.Pattern;
@@ -48,15 +52,50 @@ public class TorrentBot extends TelegramLongPollingBot {
      */
     private final QbService qbService;
 
+    /**
+     * 注入的qBittorrent异步服务对象，命令处理中的qBittorrent请求通过它发送，不阻塞Telegram的长轮询线程。
+     */
+    private final QbAsyncService qbAsyncService;
+
     /**
      * 注入的事件发布器，用于发布和处理应用事件。
      */
     private final ApplicationEventPublisher eventPublisher;
 
     /**
-     * 正则表达式模式，用于匹配磁力链接。
+     * 注入的线程池统计服务，用于 /stats 命令。
+     */
+    private final ExecutorMetrics executorMetrics;
+
+    /**
+     * 注入的后台任务调度服务，用于 /stats 命令。
+     */
+    private final JobScheduler jobScheduler;
+
+    /**
+     * 注入的复制任务队列服务，用于 /stats 命令。
+     */
+    private final CopyJobService copyJobService;
+
+    /**
+     * 注入的种子文件下载线程池，种子文件在该线程池中下载和添加，不阻塞Telegram的长轮询线程。
      */
-    private static final Pattern MAGNET_PATTERN = Pattern.compile("^magnet:\\?xt=urn:btih:[a-zA-Z0-9]{40}.*$");
+    private final ThreadPoolTaskExecutor torrentDownloadExecutor;
+
+    /**
+     * 种子文件的最大大小（10MB），超过该大小的文件不会被下载。
+     */
+    private static final int MAX_TORRENT_FILE_SIZE = 10 * 1024 * 1024;
+
+    /**
+     * 下载种子文件的连接和读取超时时间（毫秒）。
+     */
+    private static final int DOWNLOAD_TIMEOUT_MS = 30000;
+
+    /**
+     * 正则表达式模式，用于匹配磁力链接（btih支持40位十六进制和32位base32，也支持v2的btmh）。
+     */
+    private static final Pattern MAGNET_PATTERN = Pattern.compile("^magnet:\\?.*xt=urn:bt(ih:[a-zA-Z0-9]{32}|ih:[a-zA-Z0-9]{40}|mh:[a-zA-Z0-9]{68}).*$");
 
     /**
      * 获取Bot的用户名。
@@ -109,19 +148,39 @@ public class TorrentBot extends TelegramLongPollingBot {
 
             // 处理种子文件
             if (update.getMessage().hasDocument()) {
-                handleTorrentFile(chatId, update.getMessage().getDocument(), userId);
+                Document document = update.getMessage().getDocument();
+                submit(chatId, () -> torrentDownloadExecutor.execute(() -> handleTorrentFile(chatId, document, userId)));
                 return;
             }
 
             // 发布下载完成事件
             if (update.getMessage().hasText() && update.getMessage().getText().contains("✅ 下载完成通知")) {
-                eventPublisher.publishEvent(new DownloadCompleteEvent(this, chatId, update.getMessage().getText()));
+                submit(chatId, () -> eventPublisher.publishEvent(new DownloadCompleteEvent(this, chatId, update.getMessage().getText())));
             }
 
             sendMessage(chatId, "请发送磁力链接或种子文件，或输入 /help 查看可用命令。");
         }
     }
 
+    /**
+     * 将任务提交到事件线程池（直接提交或通过发布@Async事件）。线程池队列已满时任务被拒绝，
+     * 回复用户稍后重试，而不是在Telegram的长轮询线程中执行。
+     *
+     * @param chatId 聊天ID
+     * @param action 提交任务的操作
+     * @return 如果任务已提交则返回true，被拒绝时返回false
+     */
+    private boolean submit(String chatId, Runnable action) {
+        try {
+            action.run();
+            return true;
+        } catch (TaskRejectedException e) {
+            log.warn("事件线程池繁忙，拒绝用户请求: {}", e.getMessage());
+            sendMessage(chatId, "系统繁忙，请稍后重试。");
+            return false;
+        }
+    }
+
     /**
      * 检查用户是否为管理员。
      *
@@ -149,6 +208,12 @@ public class TorrentBot extends TelegramLongPollingBot {
      * @param command 用户输入的命令
      */
     private void handleCommand(String chatId, String command) {
+        if (command.equals("/organize") || command.startsWith("/organize ")) {
+            // 发布一个事件，请求优先整理名称包含关键字的任务
+            submit(chatId, () -> eventPublisher.publishEvent(
+                    new OrganizeRequestEvent(this, chatId, command.substring("/organize".length()).trim())));
+            return;
+        }
         switch (command) {
             case "/start":
                 sendMessage(chatId, "欢迎使用 TorrentBot！\n输入 /help 查看可用命令。");
@@ -158,20 +223,26 @@ public class TorrentBot extends TelegramLongPollingBot {
                         "/start - 开始使用机器人\n" +
                         "/help - 显示帮助信息\n" +
                         "/status - 查看当前下载状态\n" +
-                        "/list - 列出所有下载任务");
+                        "/list - 列出未完成的下载任务\n" +
+                        "/organize 关键字 - 优先整理名称包含关键字的任务，不带关键字时查看整理队列\n" +
+                        "/stats - 查看事件处理和后台任务统计");
                 break;
             case "/status":
-                try {
-                    String statusMessage = getStatusMessage(qbService.getTorrents());
-                    sendMessage(chatId, statusMessage);
-                } catch (IOException e) {
-                    log.error("获取下载状态失败", e);
-                    sendMessage(chatId, "获取下载状态失败，请稍后重试。");
-                }
+                submit(chatId, () -> qbAsyncService.getTorrents().whenComplete((torrents, e) -> {
+                    if (e != null) {
+                        log.error("获取下载状态失败", e);
+                        sendMessage(chatId, "获取下载状态失败，请稍后重试。");
+                        return;
+                    }
+                    sendMessage(chatId, getStatusMessage(torrents));
+                }));
                 break;
             case "/list":
                 // 发布一个事件，请求获取任务列表
-                eventPublisher.publishEvent(new ListTasksEvent(this, chatId));
+                submit(chatId, () -> eventPublisher.publishEvent(new ListTasksEvent(this, chatId)));
+                break;
+            case "/stats":
+                sendMessage(chatId, executorMetrics.format() + "\n" + jobScheduler.format() + "\n" + copyJobService.format());
                 break;
             default:
                 sendMessage(chatId, "未知命令，请输入 /help 查看可用命令。");
@@ -183,9 +254,8 @@ public class TorrentBot extends TelegramLongPollingBot {
      *
      * @param torrents 当前的下载任务列表
      * @return 包含状态信息的字符串
-     * @throws IOException 如果获取任务列表时发生IO异常，则抛出此异常
      */
-    private String getStatusMessage(List<QbTorrent> torrents) throws IOException {
+    private String getStatusMessage(List<QbTorrent> torrents) {
         if (torrents.isEmpty()) {
             return "当前没有下载任务。";
         } else {
@@ -201,7 +271,7 @@ public class TorrentBot extends TelegramLongPollingBot {
     }
 
     /**
-     * 处理磁力链接，添加到qBittorrent并发布事件。
+     * 处理磁力链接，异步添加到qBittorrent，添加成功后发布事件。
      *
      * @param chatId   聊天ID
      * @param magnetUrl 磁力链接
@@ -212,15 +282,22 @@ public class TorrentBot extends TelegramLongPollingBot {
         Long userIdLong = Long.valueOf(userId);
         Long chatIdLong = Long.valueOf(chatId);
         
-        // 添加到qBittorrent并发布事件
-        qbService.addTorrent(magnetUrl);
-        eventPublisher.publishEvent(new AddTorrentEvent(this, magnetUrl, userIdLong, chatIdLong));
-        
-        sendMessage(chatId, "已添加下载任务，请使用 /status 查看下载状态。");
+        // 添加前在本地解析哈希值，添加到qBittorrent后发布事件
+        String hash = InfoHash.fromMagnet(magnetUrl);
+        submit(chatId, () -> qbAsyncService.addTorrent(magnetUrl).whenComplete((added, e) -> {
+            if (e != null || !added) {
+                log.error("添加磁力链接失败: {}", magnetUrl, e);
+                sendMessage(chatId, "添加下载任务失败，请稍后重试。");
+                return;
+            }
+            if (submit(chatId, () -> eventPublisher.publishEvent(new AddTorrentEvent(this, magnetUrl, hash, userIdLong, chatIdLong)))) {
+                sendMessage(chatId, "已添加下载任务，请使用 /status 查看下载状态。");
+            }
+        }));
     }
 
     /**
-     * 处理种子文件，下载文件并添加到qBittorrent。
+     * 处理种子文件，将文件下载到内存后直接上传到qBittorrent，在种子文件下载线程池中执行。
      *
      * @param chatId   聊天ID
      * @param document 用户发送的种子文件
@@ -229,17 +306,21 @@ public class TorrentBot extends TelegramLongPollingBot {
     private void handleTorrentFile(String chatId, Document document, String userId) {
         try {
             // 下载种子文件
-            java.io.File torrentFile = downloadFile(document);
+            byte[] torrentData = downloadFile(document);
             
             // 发布添加Torrent事件，而不是直接调用TorrentTaskService
             Long userIdLong = Long.valueOf(userId);
             Long chatIdLong = Long.valueOf(chatId);
             
-            // 添加到qBittorrent并发布事件
-            qbService.addTorrent(torrentFile);
-            eventPublisher.publishEvent(new AddTorrentEvent(this, null, userIdLong, chatIdLong));
-            
-            sendMessage(chatId, "已添加下载任务，请使用 /status 查看下载状态。");
+            // 添加前在本地计算哈希值，添加到qBittorrent后发布事件
+            String hash = InfoHash.fromTorrent(torrentData);
+            if (!qbService.addTorrent(torrentData, document.getFileName())) {
+                sendMessage(chatId, "添加下载任务失败，请稍后重试。");
+                return;
+            }
+            if (submit(chatId, () -> eventPublisher.publishEvent(new AddTorrentEvent(this, null, hash, userIdLong, chatIdLong)))) {
+                sendMessage(chatId, "已添加下载任务，请使用 /status 查看下载状态。");
+            }
         } catch (Exception e) {
             log.error("添加种子文件失败", e);
             sendMessage(chatId, "添加下载任务失败，请稍后重试。");
@@ -247,29 +328,34 @@ public class TorrentBot extends TelegramLongPollingBot {
     }
 
     /**
-     * 下载Telegram中的文件。
+     * 将Telegram中的文件下载到内存，最多读取 {@value #MAX_TORRENT_FILE_SIZE} 字节，不写入磁盘。
      *
      * @param document 要下载的文件对象
-     * @return 下载后的本地文件
+     * @return 文件内容
      * @throws TelegramApiException 如果获取文件信息时发生异常，则抛出此异常
-     * @throws IOException          如果下载文件时发生IO异常，则抛出此异常
+     * @throws IOException          如果下载文件时发生IO异常或文件过大，则抛出此异常
      */
-    private java.io.File downloadFile(Document document) throws TelegramApiException, IOException {
+    private byte[] downloadFile(Document document) throws TelegramApiException, IOException {
+        if (document.getFileSize() != null && document.getFileSize() > MAX_TORRENT_FILE_SIZE) {
+            throw new IOException("种子文件过大: " + document.getFileSize());
+        }
+
         // 获取文件信息
         GetFile getFile = new GetFile();
         getFile.setFileId(document.getFileId());
         File file = execute(getFile);
-        
+
         // 下载文件
-        String fileUrl = file.getFileUrl(getBotToken());
-        java.io.File localFile = new java.io.File("temp/" + document.getFileName());
-        localFile.getParentFile().mkdirs();
-        
-        try (InputStream in = new java.net.URL(fileUrl).openStream()) {
-            Files.copy(in, localFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        URLConnection connection = URI.create(file.getFileUrl(getBotToken())).toURL().openConnection();
+        connection.setConnectTimeout(DOWNLOAD_TIMEOUT_MS);
+        connection.setReadTimeout(DOWNLOAD_TIMEOUT_MS);
+        try (InputStream in = connection.getInputStream()) {
+            byte[] data = in.readNBytes(MAX_TORRENT_FILE_SIZE + 1);
+            if (data.length > MAX_TORRENT_FILE_SIZE) {
+                throw new IOException("种子文件过大: " + document.getFileName());
+            }
+            return data;
         }
-        
-        return localFile;
     }
 
     /**
@@ -0,0 +1,122 @@
+package tdck.qdz.torrentbot.service;
+
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.mongodb.core.MongoTemplate;
+import org.springframework.data.mongodb.core.query.Criteria;
+import org.springframework.data.mongodb.core.query.Query;
+import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.event.TorrentRemovedEvent;
+import tdck.qdz.torrentbot.model.ManifestFile;
+import tdck.qdz.torrentbot.model.QbTorrent;
+import tdck.qdz.torrentbot.model.QbTorrentFile;
+import tdck.qdz.torrentbot.model.TorrentManifest;
+
+import java.io.IOException;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * 服务类，用于读写种子的文件清单。
+ * 清单来自qBittorrent的 /api/v2/torrents/files 接口，首次获取后缓存在数据库中，
+ * 添加种子时的文件选择会预先写入清单，整理时通常不需要再请求qBittorrent。
+ * 用户之后在qBittorrent中修改文件优先级时，清单中选中文件的总大小与种子的大小不再一致，此时重新获取；
+ * 种子整理完成或被删除后清单不再需要，随之删除。
+ */
+@Slf4j
+@Service
+@RequiredArgsConstructor
+public class TorrentManifestService {
+    /**
+     * 注入的MongoTemplate对象，用于与MongoDB数据库进行交互。
+     */
+    private final MongoTemplate mongoTemplate;
+
+    /**
+     * 注入的Qbittorrent服务对象，用于获取种子的文件列表。
+     */
+    private final QbService qbService;
+
+    /**
+     * 获取种子的文件清单，数据库中没有或已过期时从qBittorrent获取并缓存。
+     * qBittorrent中种子的大小是选中下载的文件的总大小，与清单中未跳过的文件总大小不一致时，说明文件优先级已被修改，清单已过期。
+     *
+     * @param torrent 种子信息
+     * @return 种子的文件清单
+     * @throws IOException 如果获取文件列表失败或种子尚未获取到元数据，则抛出此异常
+     */
+    public TorrentManifest getManifest(QbTorrent torrent) throws IOException {
+        String hash = torrent.getHash();
+        TorrentManifest manifest = mongoTemplate.findById(hash, TorrentManifest.class);
+        if (manifest != null && !manifest.getFiles().isEmpty()) {
+            if (selectedSize(manifest) == torrent.getSize()) {
+                return manifest;
+            }
+            log.info("种子文件优先级已变化，重新获取文件清单: {}", torrent.getName());
+        }
+        List<QbTorrentFile> files = qbService.getTorrentFiles(hash);
+        if (files.isEmpty()) {
+            throw new IOException("种子尚未获取到元数据，无法获取文件清单: " + hash);
+        }
+        return save(hash, files);
+    }
+
+    /**
+     * 保存种子的文件清单，覆盖已有的清单。
+     *
+     * @param hash  种子的哈希值
+     * @param files qBittorrent返回的文件列表
+     * @return 保存的文件清单
+     */
+    public TorrentManifest save(String hash, List<QbTorrentFile> files) {
+        TorrentManifest manifest = new TorrentManifest();
+        manifest.setId(hash);
+        for (QbTorrentFile file : files) {
+            manifest.getFiles().add(new ManifestFile(file.getName(), file.getSize(), file.getPriority()));
+        }
+        manifest.setUpdateTime(LocalDateTime.now());
+        mongoTemplate.save(manifest);
+        log.debug("保存种子文件清单: {}，文件数: {}", hash, files.size());
+        return manifest;
+    }
+
+    /**
+     * 删除种子的文件清单，种子整理完成或被删除后调用。
+     *
+     * @param hashes 种子的哈希值
+     * @return 删除的清单数量
+     */
+    public long delete(Collection<String> hashes) {
+        if (hashes.isEmpty()) {
+            return 0;
+        }
+        long deleted = mongoTemplate.remove(new Query(Criteria.where("id").in(hashes)), TorrentManifest.class).getDeletedCount();
+        log.debug("删除种子文件清单: {}个", deleted);
+        return deleted;
+    }
+
+    /**
+     * 监听种子删除事件，删除被删除种子的文件清单。
+     *
+     * @param event 种子删除事件对象，包含被删除种子的哈希值
+     */
+    @EventListener
+    public void handleTorrentRemoved(TorrentRemovedEvent event) {
+        delete(event.getHashes());
+    }
+
+    /**
+     * 计算清单中选中下载（未跳过）的文件的总大小。
+     *
+     * @param manifest 种子的文件清单
+     * @return 选中文件的总大小（字节）
+     */
+    private static long selectedSize(TorrentManifest manifest) {
+        return manifest.getFiles().stream()
+                .filter(file -> file.getPriority() != QbTorrentFile.PRIORITY_SKIP)
+                .mapToLong(ManifestFile::getSize)
+                .sum();
+    }
+}
@@ -2,23 +2,39 @@ package tdck.qdz.torrentbot.service;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.context.event.EventListener;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.mongodb.core.BulkOperations;
 import org.springframework.data.mongodb.core.MongoTemplate;
 import org.springframework.data.mongodb.core.query.Criteria;
 import org.springframework.data.mongodb.core.query.Query;
 import org.springframework.data.mongodb.core.query.Update;
-import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.scheduling.annotation.Async;
 import org.springframework.stereotype.Service;
+import tdck.qdz.torrentbot.config.AsyncConfig;
 import tdck.qdz.torrentbot.event.AddTorrentEvent;
 import tdck.qdz.torrentbot.event.ListTasksEvent;
-import tdck.qdz.torrentbot.model.QbTorrent;
+import tdck.qdz.torrentbot.event.TorrentCompletedEvent;
+import tdck.qdz.torrentbot.model.FileDigest;
+import tdck.qdz.torrentbot.model.TorrentField;
+import tdck.qdz.torrentbot.model.TorrentSnapshot;
 import tdck.qdz.torrentbot.model.TorrentTask;
 
 import java.io.IOException;
 import java.time.Duration;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumSet;
+import java.util.HashMap;
 import java.util.List;
-import java.util.regex.Matcher;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 import java.util.regex.Pattern;
 
 /**
@@ -29,6 +45,52 @@ import java.util.regex.Pattern;
 @Service
 @RequiredArgsConstructor
 public class TorrentTaskService {
+    /**
+     * 未结束的任务状态，定时检查只关注处于这些状态的任务。
+     */
+    private static final List<TorrentTask.TaskStatus> ACTIVE_STATUSES = List.of(
+            TorrentTask.TaskStatus.PENDING,
+            TorrentTask.TaskStatus.DOWNLOADING);
+
+    /**
+     * 任务列表中展示的状态，已整理和失败的历史任务不再展示。
+     */
+    private static final List<TorrentTask.TaskStatus> LISTED_STATUSES = List.of(
+            TorrentTask.TaskStatus.PENDING,
+            TorrentTask.TaskStatus.DOWNLOADING,
+            TorrentTask.TaskStatus.COMPLETED);
+
+    /**
+     * 检查下载状态时从qBittorrent读取的字段，其余字段在解析时直接跳过。
+     */
+    private static final Set<TorrentField> STATUS_FIELDS = EnumSet.of(
+            TorrentField.NAME, TorrentField.SIZE, TorrentField.PROGRESS, TorrentField.DOWNLOAD_SPEED,
+            TorrentField.ETA, TorrentField.STATE, TorrentField.SAVE_PATH, TorrentField.SEEDERS, TorrentField.LEECHERS);
+
+    /**
+     * 任务列表一次最多展示的任务数量。
+     */
+    private static final int LIST_LIMIT = 50;
+
+    /**
+     * 批量查询任务的缓存时间（毫秒），整理检查在短时间内重复查询同一批种子时不再访问数据库。
+     */
+    private static final long TASK_CACHE_TTL_MS = 5000;
+
+    /**
+     * 批量查询任务的缓存，键为种子哈希值，不存在的任务也会被缓存。任务被修改时移除对应的缓存。
+     */
+    private final Map<String, CachedTask> taskCache = new ConcurrentHashMap<>();
+
+    /**
+     * 缓存的任务。
+     *
+     * @param task   任务（只包含哈希值、名称和状态），任务不存在时为null
+     * @param expiry 过期时间戳（毫秒）
+     */
+    private record CachedTask(TorrentTask task, long expiry) {
+    }
+
     /**
      * 注入的MongoTemplate对象，用于与MongoDB数据库进行交互。
      */
@@ -45,49 +107,46 @@ public class TorrentTaskService {
     private final NotificationService notificationService;
 
     /**
-     * 处理添加种子事件，将种子任务保存到数据库并尝试更新任务的哈希值。
+     * 注入的事件发布器，用于发布种子下载完成事件。
+     */
+    private final ApplicationEventPublisher eventPublisher;
+
+    /**
+     * 处理添加种子事件，将种子任务保存到数据库。
+     * 种子的哈希值在添加前已在本地计算，随事件一起传入，不需要再到qBittorrent中查找。
+     * 在添加种子事件线程池中异步执行，不阻塞Telegram的长轮询线程。
      *
-     * @param event 添加种子事件对象，包含磁力链接、用户ID和聊天ID等信息
+     * @param event 添加种子事件对象，包含磁力链接、哈希值、用户ID和聊天ID等信息
      */
+    @Async(AsyncConfig.ADD_TORRENT_EXECUTOR)
     @EventListener
     public void handleAddTorrentEvent(AddTorrentEvent event) {
         TorrentTask task = new TorrentTask();
         task.setMagnetUrl(event.getMagnetUrl());
+        task.setHash(event.getHash());
         task.setUserId(event.getUserId());
         task.setChatId(event.getChatId());
         task.setStatus(TorrentTask.TaskStatus.PENDING);
         task.setCreateTime(LocalDateTime.now());
-        
-        // 先保存任务，获取ID
+
         saveTask(task);
         log.info("通过事件添加任务: {}", task);
-        
-        // 等待一段时间，让qBittorrent处理种子
-        try {
-            Thread.sleep(3000);
-            
-            // 尝试根据磁力链接或最近添加的任务查找对应的种子hash
-            String hash = findTorrentHash(event.getMagnetUrl());
-            if (hash != null) {
-                updateTaskHash(task.getId(), hash);
-                log.info("更新任务hash成功: id={}, hash={}", task.getId(), hash);
-            } else {
-                log.warn("无法找到任务对应的种子hash: {}", task);
-            }
-        } catch (Exception e) {
-            log.error("更新任务hash失败: {}", e.getMessage());
+        if (task.getHash() == null) {
+            log.warn("无法解析任务对应的种子hash: {}", task);
         }
     }
-    
+
     /**
      * 处理列出任务事件，查询所有任务并发送任务列表到指定聊天会话。
+     * 在列出任务事件线程池中异步执行，不阻塞Telegram的长轮询线程。
      *
      * @param event 列出任务事件对象，包含聊天ID等信息
      */
+    @Async(AsyncConfig.LIST_TASKS_EXECUTOR)
     @EventListener
     public void handleListTasksEvent(ListTasksEvent event) {
         try {
-            List<TorrentTask> tasks = getAllTasks();
+            List<TorrentTask> tasks = getListedTasks();
             StringBuilder sb = new StringBuilder();
             
             if (tasks.isEmpty()) {
@@ -116,6 +175,7 @@ public class TorrentTaskService {
      */
     public void saveTask(TorrentTask task) {
         mongoTemplate.save(task);
+        evict(task.getHash());
         log.info("保存下载任务: {}", task);
     }
 
@@ -128,6 +188,126 @@ public class TorrentTaskService {
         return mongoTemplate.findAll(TorrentTask.class);
     }
 
+    /**
+     * 查询未结束（待处理或下载中）的种子任务，只读取状态检查和变更比较需要的字段。
+     * 查询使用 status+updateTime 索引，开销只和未结束任务数量有关，与历史任务数量无关。
+     *
+     * @return 未结束的种子任务列表，只包含部分字段
+     */
+    public List<TorrentTask> getActiveTasks() {
+        return findActiveTasks(Criteria.where("status").in(ACTIVE_STATUSES));
+    }
+
+    /**
+     * 查询指定哈希值的未结束任务，只读取状态检查和变更比较需要的字段。
+     *
+     * @param hash 种子的哈希值
+     * @return 未结束的种子任务列表，只包含部分字段
+     */
+    public List<TorrentTask> getActiveTasks(String hash) {
+        return findActiveTasks(Criteria.where("hash").is(hash).and("status").in(ACTIVE_STATUSES));
+    }
+
+    /**
+     * 按条件查询任务，只读取状态检查和变更比较需要的字段。
+     *
+     * @param criteria 查询条件
+     * @return 种子任务列表，只包含部分字段
+     */
+    private List<TorrentTask> findActiveTasks(Criteria criteria) {
+        Query query = new Query(criteria);
+        query.fields().include("hash", "status", "chatId", "createTime",
+                "name", "size", "downloadSpeed", "seeders", "leechers", "savePath");
+        return mongoTemplate.find(query, TorrentTask.class);
+    }
+
+    /**
+     * 查询任务列表中展示的任务，按更新时间倒序，最多返回 {@value #LIST_LIMIT} 个。
+     *
+     * @return 种子任务列表，只包含展示需要的字段
+     */
+    public List<TorrentTask> getListedTasks() {
+        Query query = new Query(Criteria.where("status").in(LISTED_STATUSES))
+                .with(Sort.by(Sort.Direction.DESC, "updateTime"))
+                .limit(LIST_LIMIT);
+        query.fields().include("name", "status", "createTime", "updateTime");
+        return mongoTemplate.find(query, TorrentTask.class);
+    }
+
+    /**
+     * 判断是否存在已下载完成但尚未整理的任务。
+     *
+     * @return 如果存在则返回true
+     */
+    public boolean hasCompletedTasks() {
+        return mongoTemplate.exists(new Query(Criteria.where("status").is(TorrentTask.TaskStatus.COMPLETED)), TorrentTask.class);
+    }
+
+    /**
+     * 查询名称包含关键字（不区分大小写）的已下载完成但尚未整理的任务，最多返回 {@value #LIST_LIMIT} 个。
+     *
+     * @param keyword 任务名称关键字
+     * @return 种子任务列表，只包含哈希值和名称
+     */
+    public List<TorrentTask> getCompletedTasks(String keyword) {
+        Query query = new Query(Criteria.where("status").is(TorrentTask.TaskStatus.COMPLETED)
+                .and("name").regex(Pattern.quote(keyword), "i"))
+                .limit(LIST_LIMIT);
+        query.fields().include("hash", "name");
+        return mongoTemplate.find(query, TorrentTask.class);
+    }
+
+    /**
+     * 根据哈希值批量查询种子任务，未缓存的哈希值通过一次 $in 查询获取，数据库访问次数与种子数量无关。
+     *
+     * @param hashes 种子的哈希值
+     * @return 哈希值到任务的映射，只包含存在的任务，任务只包含哈希值、名称和状态
+     */
+    public Map<String, TorrentTask> getTasksByHashes(Collection<String> hashes) {
+        Map<String, TorrentTask> tasks = new HashMap<>();
+        List<String> missing = new ArrayList<>();
+        long now = System.currentTimeMillis();
+        for (String hash : hashes) {
+            CachedTask cached = taskCache.get(hash);
+            if (cached == null || cached.expiry() <= now) {
+                missing.add(hash);
+            } else if (cached.task() != null) {
+                tasks.put(hash, cached.task());
+            }
+        }
+        if (missing.isEmpty()) {
+            return tasks;
+        }
+
+        Query query = new Query(Criteria.where("hash").in(missing));
+        query.fields().include("hash", "name", "status");
+        Map<String, TorrentTask> found = new HashMap<>();
+        for (TorrentTask task : mongoTemplate.find(query, TorrentTask.class)) {
+            found.putIfAbsent(task.getHash(), task);
+        }
+        taskCache.values().removeIf(cached -> cached.expiry() <= now);
+        long expiry = now + TASK_CACHE_TTL_MS;
+        for (String hash : missing) {
+            TorrentTask task = found.get(hash);
+            taskCache.put(hash, new CachedTask(task, expiry));
+            if (task != null) {
+                tasks.put(hash, task);
+            }
+        }
+        return tasks;
+    }
+
+    /**
+     * 移除任务的批量查询缓存。
+     *
+     * @param hash 种子的哈希值
+     */
+    private void evict(String hash) {
+        if (hash != null) {
+            taskCache.remove(hash);
+        }
+    }
+
     /**
      * 根据哈希值查询种子任务。
      *
@@ -162,9 +342,25 @@ public class TorrentTaskService {
                 .set("status", status)
                 .set("updateTime", LocalDateTime.now());
         mongoTemplate.updateFirst(query, update, TorrentTask.class);
+        evict(hash);
         log.info("更新任务状态: hash={}, status={}", hash, status);
     }
 
+    /**
+     * 更新种子任务整理后各文件的校验和。
+     *
+     * @param hash        种子任务的哈希值
+     * @param fileDigests 各文件的校验和
+     */
+    public void updateTaskFileDigests(String hash, List<FileDigest> fileDigests) {
+        Query query = new Query(Criteria.where("hash").is(hash));
+        Update update = new Update()
+                .set("fileDigests", fileDigests)
+                .set("updateTime", LocalDateTime.now());
+        mongoTemplate.updateFirst(query, update, TorrentTask.class);
+        log.info("更新任务文件校验和: hash={}, 文件数={}", hash, fileDigests.size());
+    }
+
     /**
      * 更新种子任务的哈希值。
      *
@@ -177,60 +373,168 @@ public class TorrentTaskService {
                 .set("hash", hash)
                 .set("updateTime", LocalDateTime.now());
         mongoTemplate.updateFirst(query, update, TorrentTask.class);
+        evict(hash);
         log.info("更新任务hash: id={}, hash={}", id, hash);
     }
 
     /**
-     * 定时检查下载状态，每30秒执行一次。
-     * 遍历所有待处理的任务，更新其状态并处理下载完成的任务。
+     * 检查下载状态，由 {@link DownloadPollScheduler} 根据种子的剩余时间自适应地调度。
+     * 只查询未结束的任务，通过一次（按哈希值分组的）/torrents/info 批量查询获取这些任务的种子信息，并在一轮中更新所有任务。
+     * 种子信息以流式方式只读取需要的字段到调用方持有的列式快照中，每次轮询不再为每个种子创建对象。
+     * 任务下载完成后发布 {@link TorrentCompletedEvent}。
+     *
+     * @param reuse 调用方持有并重复使用的快照，为null时创建新快照
+     * @return 跟踪中的种子（包括本次刚下载完成的种子），用于计算下一次检查的时间
+     * @throws IOException 如果查询qBittorrent时发生IO异常，则抛出此异常
+     */
+    public synchronized TorrentSnapshot checkDownloadStatus(TorrentSnapshot reuse) throws IOException {
+        return refreshTasks(getActiveTasks(), reuse);
+    }
+
+    /**
+     * 检查所有未结束任务的下载状态，使用新创建的快照。
+     *
+     * @return 跟踪中的种子
+     * @throws IOException 如果查询qBittorrent时发生IO异常，则抛出此异常
+     * @see #checkDownloadStatus(TorrentSnapshot)
+     */
+    public synchronized TorrentSnapshot checkDownloadStatus() throws IOException {
+        return refreshTasks(getActiveTasks(), null);
+    }
+
+    /**
+     * 只检查指定哈希值的任务的下载状态，由 {@link DownloadWatchService} 在下载目录中的文件写入结束后调用。
+     * 只向qBittorrent查询这一个种子，任务下载完成后同样发布 {@link TorrentCompletedEvent}，文件整理会立即开始。
+     *
+     * @param hash 种子的哈希值
+     * @return 该种子对应任务未结束时返回包含该种子的快照，否则返回空快照
+     * @throws IOException 如果查询qBittorrent时发生IO异常，则抛出此异常
      */
-    @Scheduled(fixedRate = 30000)
-    public void checkDownloadStatus() {
-        List<TorrentTask> pendingTasks = mongoTemplate.findAll(TorrentTask.class);
+    public synchronized TorrentSnapshot checkDownloadStatus(String hash) throws IOException {
+        return refreshTasks(getActiveTasks(hash), null);
+    }
+
+    /**
+     * 通过一次批量查询获取任务对应的种子信息，并在一轮中更新所有任务。
+     * 调用方持有本对象的锁，轮询和文件监听同时检查同一个任务时不会重复发送完成通知。
+     *
+     * @param pendingTasks 未结束的任务（只加载了部分字段）
+     * @param reuse        要复用的快照，为null时创建新快照
+     * @return 跟踪中的种子
+     * @throws IOException 如果查询qBittorrent时发生IO异常，则抛出此异常
+     */
+    private TorrentSnapshot refreshTasks(List<TorrentTask> pendingTasks, TorrentSnapshot reuse) throws IOException {
+        // 按hash分组，hash为空的任务跳过
+        Map<String, List<TorrentTask>> tasksByHash = new HashMap<>();
         for (TorrentTask task : pendingTasks) {
-            try {
-                // 如果hash为空，跳过此任务
-                if (task.getHash() == null || task.getHash().isEmpty()) {
+            if (task.getHash() == null || task.getHash().isEmpty()) {
+                continue;
+            }
+            tasksByHash.computeIfAbsent(task.getHash().toLowerCase(), k -> new ArrayList<>()).add(task);
+        }
+        // 没有任务时不发送请求，返回空快照
+        TorrentSnapshot torrents = qbService.getTorrentSnapshot(STATUS_FIELDS, tasksByHash.keySet(), reuse);
+        if (torrents.size() == 0) {
+            return torrents;
+        }
+
+        // 所有变更合并为一次无序批量写入，没有变化的任务不产生写操作
+        BulkOperations bulk = mongoTemplate.bulkOps(BulkOperations.BulkMode.UNORDERED, TorrentTask.class);
+        List<TorrentTask> completedTasks = new ArrayList<>();
+        List<String> updatedHashes = new ArrayList<>();
+        int updates = 0;
+        for (int row = 0; row < torrents.size(); row++) {
+            for (TorrentTask task : tasksByHash.getOrDefault(torrents.getHash(row).toLowerCase(), List.of())) {
+                Update update = updateTaskStatus(task, torrents, row);
+                if (update == null) {
                     continue;
                 }
-                
-                QbTorrent torrent = qbService.getTorrent(task.getHash());
-                if (torrent != null) {
-                    updateTaskStatus(task, torrent);
+                bulk.updateOne(new Query(Criteria.where("id").is(task.getId())), update);
+                updatedHashes.add(task.getHash());
+                updates++;
+                if (task.getStatus() == TorrentTask.TaskStatus.COMPLETED) {
+                    completedTasks.add(task);
                 }
-            } catch (Exception e) {
-                log.error("检查下载状态失败: {}", e.getMessage());
             }
         }
+        if (updates == 0) {
+            return torrents;
+        }
+
+        try {
+            bulk.execute();
+            updatedHashes.forEach(this::evict);
+            log.debug("批量更新任务状态: {}个任务", updates);
+        } catch (Exception e) {
+            log.error("批量更新任务状态失败: {}", e.getMessage());
+            return torrents;
+        }
+
+        // 写入成功后再发送下载完成通知，并触发文件整理
+        for (TorrentTask task : completedTasks) {
+            sendDownloadCompleteNotification(task);
+            try {
+                eventPublisher.publishEvent(new TorrentCompletedEvent(this, task.getHash()));
+            } catch (TaskRejectedException e) {
+                // 下载完成事件线程池已满，任务已标记为完成，由兜底整理检查处理
+                log.warn("下载完成事件线程池繁忙，留给兜底整理检查: {}", task.getName());
+            }
+        }
+        return torrents;
     }
 
     /**
-     * 更新种子任务的状态信息，并检查是否下载完成。
+     * 根据qBittorrent中的种子信息更新任务对象，并生成只包含变化字段的更新操作。
      *
-     * @param task    种子任务对象
-     * @param torrent qBittorrent中的种子信息
-     */
-    private void updateTaskStatus(TorrentTask task, QbTorrent torrent) {
-        // 更新任务信息
-        task.setName(torrent.getName());
-        task.setSize(torrent.getSize());
-        task.setDownloadSpeed(torrent.getDownloadSpeed());
-        task.setSeeders(torrent.getSeeders());
-        task.setLeechers(torrent.getLeechers());
-        task.setSavePath(torrent.getSavePath());
-        task.setUpdateTime(LocalDateTime.now());
+     * @param task     种子任务对象（只加载了部分字段）
+     * @param torrents 种子信息快照
+     * @param row      种子在快照中的行号
+     * @return 包含变化字段的$set更新操作，如果没有任何变化则返回null
+     */
+    private Update updateTaskStatus(TorrentTask task, TorrentSnapshot torrents, int row) {
+        Update update = new Update();
+        setIfChanged(update, "name", task.getName(), torrents.getName(row), task::setName);
+        setIfChanged(update, "size", task.getSize(), torrents.getSize(row), task::setSize);
+        setIfChanged(update, "downloadSpeed", task.getDownloadSpeed(), torrents.getDownloadSpeed(row), task::setDownloadSpeed);
+        setIfChanged(update, "seeders", task.getSeeders(), torrents.getSeeders(row), task::setSeeders);
+        setIfChanged(update, "leechers", task.getLeechers(), torrents.getLeechers(row), task::setLeechers);
+        setIfChanged(update, "savePath", task.getSavePath(), torrents.getSavePath(row), task::setSavePath);
 
         // 检查是否下载完成
-        if ("completed".equals(torrent.getState()) && task.getStatus() != TorrentTask.TaskStatus.COMPLETED) {
+        if (torrents.isCompleted(row)) {
             task.setStatus(TorrentTask.TaskStatus.COMPLETED);
             task.setCompletionTime(LocalDateTime.now());
             task.setDownloadTime(Duration.between(task.getCreateTime(), task.getCompletionTime()).getSeconds());
-            
-            // 发送下载完成通知
-            sendDownloadCompleteNotification(task);
+            update.set("status", task.getStatus())
+                    .set("completionTime", task.getCompletionTime())
+                    .set("downloadTime", task.getDownloadTime());
+        } else if (task.getStatus() == TorrentTask.TaskStatus.PENDING) {
+            task.setStatus(TorrentTask.TaskStatus.DOWNLOADING);
+            update.set("status", task.getStatus());
         }
 
-        mongoTemplate.save(task);
+        if (update.getUpdateObject().isEmpty()) {
+            return null;
+        }
+        task.setUpdateTime(LocalDateTime.now());
+        return update.set("updateTime", task.getUpdateTime());
+    }
+
+    /**
+     * 如果字段值发生变化，则更新任务对象并将该字段加入$set更新操作。
+     *
+     * @param update  更新操作
+     * @param field   字段名
+     * @param current 任务中的当前值
+     * @param latest  qBittorrent中的最新值
+     * @param setter  任务对象的setter
+     * @param <T>     字段类型
+     */
+    private static <T> void setIfChanged(Update update, String field, T current, T latest, Consumer<T> setter) {
+        if (!Objects.equals(current, latest)) {
+            setter.accept(latest);
+            update.set(field, latest);
+        }
     }
 
     /**
@@ -282,48 +586,4 @@ public class TorrentTaskService {
         if (seconds < 3600) return String.format("%d分%d秒", seconds / 60, seconds % 60);
         return String.format("%d小时%d分%d秒", seconds / 3600, (seconds % 3600) / 60, seconds % 60);
     }
-
-    /**
-     * 根据磁力链接或最近添加的任务查找对应的种子哈希值。
-     *
-     * @param magnetUrl 磁力链接
-     * @return 找到的种子哈希值，如果未找到则返回null
-     * @throws IOException 如果获取种子列表时发生IO异常，则抛出此异常
-     */
-    private String findTorrentHash(String magnetUrl) throws IOException {
-        // 获取所有种子
-        List<QbTorrent> torrents = qbService.getTorrents();
-        
-        // 如果有磁力链接，可以尝试从中提取hash
-        if (magnetUrl != null && !magnetUrl.isEmpty()) {
-            // 磁力链接中的hash格式通常是：magnet:?xt=urn:btih:HASH
-            Pattern pattern = Pattern.compile("magnet:\\?xt=urn:btih:([a-zA-Z0-9]+)");
-            Matcher matcher = pattern.matcher(magnetUrl);
-            if (matcher.find()) {
-                String expectedHash = matcher.group(1).toLowerCase();
-                
-                // 在qBittorrent中查找匹配的种子
-                for (QbTorrent torrent : torrents) {
-                    if (torrent.getHash().toLowerCase().startsWith(expectedHash)) {
-                        return torrent.getHash();
-                    }
-                }
-            }
-        }
-        
-        // 如果无法从磁力链接提取hash，则尝试获取最近添加的种子
-        if (!torrents.isEmpty()) {
-            // 按添加时间排序，获取最新的种子
-            QbTorrent latestTorrent = torrents.stream()
-                    .sorted((t1, t2) -> Long.compare(t2.getAddedOn(), t1.getAddedOn()))
-                    .findFirst()
-                    .orElse(null);
-            
-            if (latestTorrent != null) {
-                return latestTorrent.getHash();
-            }
-        }
-        
-        return null;
-    }
-} 
\ No newline at end of file
+}
\ No newline at end of file
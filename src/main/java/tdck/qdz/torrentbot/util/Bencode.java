@@ -0,0 +1,171 @@
+package tdck.qdz.torrentbot.util;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 工具类，用于解析bencode编码的数据（.torrent文件的格式）。
+ * 解析结果中整数为 {@link Long}，字符串为 {@code byte[]}（种子中的pieces等字段是二进制数据），
+ * 列表为 {@link List}，字典为键按原始顺序排列的 {@link Map}。
+ */
+public final class Bencode {
+    /**
+     * 嵌套层数上限，防止恶意构造的数据导致栈溢出。
+     */
+    private static final int MAX_DEPTH = 64;
+
+    /**
+     * 待解析的数据。
+     */
+    private final byte[] data;
+
+    /**
+     * 当前读取位置。
+     */
+    private int pos;
+
+    private Bencode(byte[] data) {
+        this.data = data;
+    }
+
+    /**
+     * 解析完整的bencode数据。
+     *
+     * @param data bencode编码的数据
+     * @return 解析结果
+     * @throws IOException 如果数据格式不正确，则抛出此异常
+     */
+    public static Object decode(byte[] data) throws IOException {
+        Bencode reader = new Bencode(data);
+        Object value = reader.readValue(0);
+        if (reader.pos != data.length) {
+            throw new IOException("bencode数据末尾存在多余内容，位置: " + reader.pos);
+        }
+        return value;
+    }
+
+    /**
+     * 获取顶层字典中指定键对应值的原始编码字节，用于计算种子的info哈希。
+     * info字典必须按原始字节计算哈希，重新编码可能因键顺序或整数格式不同而得到不同的结果。
+     *
+     * @param data bencode编码的数据，顶层必须是字典
+     * @param key  要查找的键
+     * @return 对应值的原始字节，如果键不存在则返回null
+     * @throws IOException 如果数据格式不正确，则抛出此异常
+     */
+    public static byte[] rawValue(byte[] data, String key) throws IOException {
+        Bencode reader = new Bencode(data);
+        if (reader.peek() != 'd') {
+            throw new IOException("bencode数据顶层不是字典");
+        }
+        byte[] target = key.getBytes(StandardCharsets.UTF_8);
+        reader.pos++;
+        while (reader.peek() != 'e') {
+            byte[] name = reader.readBytes();
+            int start = reader.pos;
+            reader.readValue(1);
+            if (Arrays.equals(name, target)) {
+                return Arrays.copyOfRange(data, start, reader.pos);
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 读取一个值。
+     *
+     * @param depth 当前嵌套层数
+     * @return 解析出的值
+     * @throws IOException 如果数据格式不正确，则抛出此异常
+     */
+    private Object readValue(int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IOException("bencode嵌套层数过多");
+        }
+        byte type = peek();
+        switch (type) {
+            case 'i':
+                pos++;
+                return readLong('e');
+            case 'l': {
+                pos++;
+                List<Object> list = new ArrayList<>();
+                while (peek() != 'e') {
+                    list.add(readValue(depth + 1));
+                }
+                pos++;
+                return list;
+            }
+            case 'd': {
+                pos++;
+                Map<String, Object> dict = new LinkedHashMap<>();
+                while (peek() != 'e') {
+                    String key = new String(readBytes(), StandardCharsets.UTF_8);
+                    dict.put(key, readValue(depth + 1));
+                }
+                pos++;
+                return dict;
+            }
+            default:
+                if (type >= '0' && type <= '9') {
+                    return readBytes();
+                }
+                throw new IOException("无法识别的bencode类型: " + (char) type + "，位置: " + pos);
+        }
+    }
+
+    /**
+     * 读取一个字符串（长度:内容）。
+     *
+     * @return 字符串的原始字节
+     * @throws IOException 如果数据格式不正确，则抛出此异常
+     */
+    private byte[] readBytes() throws IOException {
+        long length = readLong(':');
+        if (length < 0 || length > data.length - pos) {
+            throw new IOException("bencode字符串长度不正确: " + length + "，位置: " + pos);
+        }
+        byte[] bytes = Arrays.copyOfRange(data, pos, pos + (int) length);
+        pos += (int) length;
+        return bytes;
+    }
+
+    /**
+     * 读取一个十进制整数，直到遇到指定的结束符。
+     *
+     * @param terminator 结束符
+     * @return 读取到的整数
+     * @throws IOException 如果数据格式不正确，则抛出此异常
+     */
+    private long readLong(char terminator) throws IOException {
+        int start = pos;
+        while (peek() != terminator) {
+            pos++;
+        }
+        String text = new String(data, start, pos - start, StandardCharsets.US_ASCII);
+        pos++;
+        try {
+            return Long.parseLong(text);
+        } catch (NumberFormatException e) {
+            throw new IOException("bencode整数格式不正确: " + text + "，位置: " + start);
+        }
+    }
+
+    /**
+     * 查看当前位置的字节，不移动读取位置。
+     *
+     * @return 当前位置的字节
+     * @throws IOException 如果已到达数据末尾，则抛出此异常
+     */
+    private byte peek() throws IOException {
+        if (pos >= data.length) {
+            throw new IOException("bencode数据意外结束");
+        }
+        return data[pos];
+    }
+}
@@ -0,0 +1,173 @@
+package tdck.qdz.torrentbot.util;
+
+import java.io.IOException;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * 工具类，用于在本地计算种子的哈希值（qBittorrent中种子的唯一标识）。
+ * 添加种子前即可得到哈希值，不需要再到qBittorrent的种子列表中查找。
+ * <p>
+ * qBittorrent使用的标识规则：
+ * <ul>
+ *     <li>v1和混合种子：info字典的SHA-1，40位十六进制；</li>
+ *     <li>纯v2种子：info字典的SHA-256，截取前40位十六进制。</li>
+ * </ul>
+ * 返回的哈希值均为小写。
+ */
+public final class InfoHash {
+    /**
+     * 十六进制编码器。
+     */
+    private static final HexFormat HEX = HexFormat.of();
+
+    /**
+     * RFC 4648 base32字母表，旧式磁力链接使用32位base32编码的btih。
+     */
+    private static final String BASE32_ALPHABET = "ABCDEFGHIJKLMNOPQRSTUVWXYZ234567";
+
+    /**
+     * btmh中SHA-256 multihash的前缀（算法0x12，长度0x20）。
+     */
+    private static final String SHA256_MULTIHASH_PREFIX = "1220";
+
+    private InfoHash() {
+    }
+
+    /**
+     * 根据.torrent文件内容计算种子的哈希值。
+     *
+     * @param torrent .torrent文件的内容
+     * @return 小写的40位十六进制哈希值
+     * @throws IOException 如果文件不是有效的种子文件，则抛出此异常
+     */
+    public static String fromTorrent(byte[] torrent) throws IOException {
+        byte[] info = Bencode.rawValue(torrent, "info");
+        if (info == null) {
+            throw new IOException("种子文件缺少info字典");
+        }
+        if (!(Bencode.decode(info) instanceof Map<?, ?> dict)) {
+            throw new IOException("种子文件的info不是字典");
+        }
+        // 包含pieces的是v1或混合种子，qBittorrent以v1哈希作为标识
+        if (dict.containsKey("pieces")) {
+            return HEX.formatHex(digest("SHA-1", info));
+        }
+        if (Long.valueOf(2).equals(dict.get("meta version"))) {
+            return HEX.formatHex(digest("SHA-256", info)).substring(0, 40);
+        }
+        throw new IOException("无法识别的种子版本");
+    }
+
+    /**
+     * 从磁力链接中解析种子的哈希值，支持十六进制和base32编码的btih，以及SHA-256的btmh。
+     * 同时包含btih和btmh的混合磁力链接以btih为准。
+     *
+     * @param magnetUrl 磁力链接
+     * @return 小写的40位十六进制哈希值，如果磁力链接中没有可识别的哈希则返回null
+     */
+    public static String fromMagnet(String magnetUrl) {
+        if (magnetUrl == null || !magnetUrl.regionMatches(true, 0, "magnet:?", 0, 8)) {
+            return null;
+        }
+        String v2Hash = null;
+        for (String param : magnetUrl.substring(8).split("&")) {
+            int eq = param.indexOf('=');
+            if (eq < 0 || !param.substring(0, eq).toLowerCase(Locale.ROOT).startsWith("xt")) {
+                continue;
+            }
+            String value = URLDecoder.decode(param.substring(eq + 1), StandardCharsets.UTF_8);
+            if (value.regionMatches(true, 0, "urn:btih:", 0, 9)) {
+                String btih = decodeBtih(value.substring(9));
+                if (btih != null) {
+                    return btih;
+                }
+            } else if (value.regionMatches(true, 0, "urn:btmh:", 0, 9) && v2Hash == null) {
+                String btmh = value.substring(9).toLowerCase(Locale.ROOT);
+                if (btmh.length() == 68 && btmh.startsWith(SHA256_MULTIHASH_PREFIX) && isHex(btmh)) {
+                    v2Hash = btmh.substring(4, 44);
+                }
+            }
+        }
+        return v2Hash;
+    }
+
+    /**
+     * 解析btih的值。
+     *
+     * @param btih 40位十六进制或32位base32编码的btih
+     * @return 小写的40位十六进制哈希值，如果格式不正确则返回null
+     */
+    private static String decodeBtih(String btih) {
+        if (btih.length() == 40 && isHex(btih)) {
+            return btih.toLowerCase(Locale.ROOT);
+        }
+        if (btih.length() == 32) {
+            byte[] bytes = decodeBase32(btih);
+            return bytes == null ? null : HEX.formatHex(bytes);
+        }
+        return null;
+    }
+
+    /**
+     * 解码不带填充的base32字符串。
+     *
+     * @param text base32字符串，不区分大小写
+     * @return 解码后的字节，如果包含非法字符则返回null
+     */
+    static byte[] decodeBase32(String text) {
+        byte[] out = new byte[text.length() * 5 / 8];
+        int buffer = 0;
+        int bits = 0;
+        int index = 0;
+        for (int i = 0; i < text.length(); i++) {
+            int value = BASE32_ALPHABET.indexOf(Character.toUpperCase(text.charAt(i)));
+            if (value < 0) {
+                return null;
+            }
+            buffer = (buffer << 5) | value;
+            bits += 5;
+            if (bits >= 8) {
+                bits -= 8;
+                out[index++] = (byte) (buffer >> bits);
+            }
+        }
+        return out;
+    }
+
+    /**
+     * 判断字符串是否只包含十六进制字符。
+     *
+     * @param text 要检查的字符串
+     * @return 如果只包含十六进制字符则返回true
+     */
+    private static boolean isHex(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (Character.digit(text.charAt(i), 16) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * 计算摘要。
+     *
+     * @param algorithm 摘要算法
+     * @param data      要计算的数据
+     * @return 摘要
+     */
+    private static byte[] digest(String algorithm, byte[] data) {
+        try {
+            return MessageDigest.getInstance(algorithm).digest(data);
+        } catch (NoSuchAlgorithmException e) {
+            // SHA-1和SHA-256是JDK必须提供的算法
+            throw new IllegalStateException(e);
+        }
+    }
+}
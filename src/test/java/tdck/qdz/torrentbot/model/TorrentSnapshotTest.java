@@ -0,0 +1,92 @@
+package tdck.qdz.torrentbot.model;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class TorrentSnapshotTest {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static final String TORRENTS = "[" +
+            "{\"hash\":\"aaa\",\"name\":\"A\",\"size\":100,\"progress\":0.5,\"state\":\"downloading\"," +
+            "\"tags\":\"x, y\",\"trackers\":[{\"url\":\"u\"}],\"eta\":30}," +
+            "{\"hash\":\"bbb\",\"name\":\"B\",\"size\":200,\"progress\":1,\"state\":\"downloading\",\"eta\":0}" +
+            "]";
+
+    private static void read(TorrentSnapshot snapshot, String json, EnumSet<TorrentField> fields) throws IOException {
+        try (JsonParser parser = JSON.createParser(json)) {
+            snapshot.read(parser, fields);
+        }
+    }
+
+    @Test
+    void testProjection() throws IOException {
+        TorrentSnapshot snapshot = new TorrentSnapshot();
+        read(snapshot, TORRENTS, EnumSet.of(TorrentField.SIZE, TorrentField.STATE));
+
+        assertEquals(2, snapshot.size());
+        int row = snapshot.indexOf("bbb");
+        assertEquals(1, row);
+        assertEquals(200, snapshot.getSize(row));
+        assertEquals("downloading", snapshot.getState(row));
+        // 未投影的字段不会被读取
+        assertNull(snapshot.getName(row));
+        assertEquals(0, snapshot.getEta(row));
+        assertFalse(snapshot.hasField(TorrentField.NAME));
+        // 相同状态复用同一个字符串实例
+        assertSame(snapshot.getState(0), snapshot.getState(1));
+    }
+
+    @Test
+    void testReuse() throws IOException {
+        TorrentSnapshot snapshot = new TorrentSnapshot();
+        read(snapshot, TORRENTS, EnumSet.allOf(TorrentField.class));
+        assertEquals(0.5, snapshot.getProgress(snapshot.indexOf("aaa")));
+
+        read(snapshot, "[{\"hash\":\"ccc\",\"progress\":0.25}]", EnumSet.of(TorrentField.PROGRESS));
+        assertEquals(1, snapshot.size());
+        assertEquals(-1, snapshot.indexOf("aaa"));
+        assertEquals(0.25, snapshot.getProgress(snapshot.indexOf("ccc")));
+        assertThrows(IndexOutOfBoundsException.class, () -> snapshot.getHash(1));
+    }
+
+    @Test
+    void testAppend() throws IOException {
+        TorrentSnapshot snapshot = new TorrentSnapshot();
+        EnumSet<TorrentField> fields = EnumSet.of(TorrentField.PROGRESS, TorrentField.STATE, TorrentField.SEEDERS);
+        read(snapshot, TORRENTS, fields);
+        try (JsonParser parser = JSON.createParser("[{\"hash\":\"ccc\",\"progress\":0.9,\"state\":\"pausedUP\",\"num_seeds\":7}]")) {
+            snapshot.append(parser, fields);
+        }
+
+        // 分组请求的结果合并到同一个快照中
+        assertEquals(3, snapshot.size());
+        int row = snapshot.indexOf("ccc");
+        assertEquals(2, row);
+        assertEquals(7, snapshot.getSeeders(row));
+        // 与QbTorrent相同，进度达到100%或处于已完成状态时视为下载完成
+        assertFalse(snapshot.isCompleted(snapshot.indexOf("aaa")));
+        assertTrue(snapshot.isCompleted(snapshot.indexOf("bbb")));
+        assertTrue(snapshot.isCompleted(row));
+    }
+
+    @Test
+    void testGrowth() throws IOException {
+        StringBuilder json = new StringBuilder("[");
+        for (int i = 0; i < 1000; i++) {
+            json.append(i == 0 ? "" : ",").append("{\"hash\":\"h").append(i).append("\",\"size\":").append(i).append('}');
+        }
+        json.append(']');
+
+        TorrentSnapshot snapshot = new TorrentSnapshot();
+        read(snapshot, json.toString(), EnumSet.of(TorrentField.SIZE));
+        assertEquals(1000, snapshot.size());
+        assertEquals(999, snapshot.getSize(snapshot.indexOf("h999")));
+    }
+}
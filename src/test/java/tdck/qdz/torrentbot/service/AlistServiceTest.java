@@ -0,0 +1,108 @@
+package tdck.qdz.torrentbot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tdck.qdz.torrentbot.config.AlistConfig;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class AlistServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testUpload() throws IOException {
+        Path remote = Files.createDirectories(dir.resolve("remote"));
+        Path local = Files.createDirectories(dir.resolve("local"));
+        byte[] data = new byte[3 * 1024 * 1024 + 123];
+        new Random(42).nextBytes(data);
+        Path large = Files.write(local.resolve("large file.bin"), data);
+        Path small = Files.write(local.resolve("small.txt"), "hello".getBytes());
+
+        try (LocalAlistServer server = new LocalAlistServer(remote, "admin", "secret")) {
+            AlistConfig config = new AlistConfig();
+            config.setHost(server.host());
+            config.setUsername("admin");
+            config.setPassword("secret");
+            config.setUploadBuffer(64);
+            AlistService service = new AlistService(config, new ObjectMapper());
+            try {
+                List<AlistService.UploadRequest> requests = List.of(
+                        new AlistService.UploadRequest(large, "/organized/movies/large file.bin"),
+                        new AlistService.UploadRequest(small, "/organized/movies/small.txt"));
+                assertEquals(data.length + 5, service.upload(requests));
+                assertArrayEquals(data, Files.readAllBytes(remote.resolve("organized/movies/large file.bin")));
+                assertEquals("hello", Files.readString(remote.resolve("organized/movies/small.txt")));
+                assertEquals(2, server.uploads.get());
+                // 令牌被缓存，只登录一次
+                assertEquals(1, server.logins.get());
+
+                // 远程文件大小一致时跳过，令牌失效时重新登录
+                server.expireTokens();
+                Files.write(remote.resolve("organized/movies/small.txt"), "hel".getBytes());
+                service.upload(requests);
+                assertEquals(3, server.uploads.get());
+                assertEquals(2, server.logins.get());
+                assertEquals("hello", Files.readString(remote.resolve("organized/movies/small.txt")));
+                assertEquals(-1, service.getFileSize("/organized/missing.bin"));
+                assertEquals(-1, service.getFileSize("/organized/missing/missing.bin"));
+
+                // 存储异常不能当作文件不存在
+                server.storageDown = true;
+                assertThrows(IOException.class, () -> service.getFileSize("/organized/movies/small.txt"));
+            } finally {
+                service.close();
+            }
+        }
+    }
+
+    @Test
+    void testAbortOnFailure() throws IOException {
+        Path remote = Files.createDirectories(dir.resolve("remote"));
+        Path local = Files.createDirectories(dir.resolve("local"));
+        Path file = Files.write(local.resolve("file.bin"), new byte[1024]);
+
+        try (LocalAlistServer server = new LocalAlistServer(remote, "admin", "secret")) {
+            AlistConfig config = new AlistConfig();
+            config.setHost(server.host());
+            config.setUsername("admin");
+            config.setPassword("secret");
+            config.setUploadThreads(1);
+            AlistService service = new AlistService(config, new ObjectMapper());
+            try {
+                // 第一个文件失败后，排队中的文件不再上传
+                List<AlistService.UploadRequest> requests = List.of(
+                        new AlistService.UploadRequest(local.resolve("missing.bin"), "/organized/missing.bin"),
+                        new AlistService.UploadRequest(file, "/organized/file.bin"));
+                assertThrows(IOException.class, () -> service.upload(requests));
+                assertEquals(0, server.uploads.get());
+            } finally {
+                service.close();
+            }
+        }
+    }
+
+    @Test
+    void testLoginFailure() throws IOException {
+        try (LocalAlistServer server = new LocalAlistServer(dir, "admin", "secret")) {
+            AlistConfig config = new AlistConfig();
+            config.setHost(server.host());
+            config.setUsername("admin");
+            config.setPassword("wrong");
+            AlistService service = new AlistService(config, new ObjectMapper());
+            try {
+                assertThrows(IOException.class, service::login);
+            } finally {
+                service.close();
+            }
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package tdck.qdz.torrentbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ContentIndexServiceTest {
+
+    @TempDir
+    Path dir;
+
+    @Test
+    void testHashes() throws IOException {
+        byte[] data = new byte[1024 * 1024];
+        new Random(42).nextBytes(data);
+        Path a = Files.write(dir.resolve("a.bin"), data);
+        Path b = Files.write(dir.resolve("b.bin"), data);
+        assertEquals(ContentIndexService.sampleHash(a), ContentIndexService.sampleHash(b));
+        assertEquals(ContentIndexService.fullHash(a), ContentIndexService.fullHash(b));
+
+        // 未被抽样的位置不同：抽样哈希值相同，完整哈希值不同
+        data[300 * 1024] ^= 1;
+        Path c = Files.write(dir.resolve("c.bin"), data);
+        assertEquals(ContentIndexService.sampleHash(a), ContentIndexService.sampleHash(c));
+        assertNotEquals(ContentIndexService.fullHash(a), ContentIndexService.fullHash(c));
+
+        // 结尾不同：抽样哈希值不同
+        data[data.length - 1] ^= 1;
+        Path d = Files.write(dir.resolve("d.bin"), data);
+        assertNotEquals(ContentIndexService.sampleHash(c), ContentIndexService.sampleHash(d));
+
+        // 小文件对整个文件计算
+        Path small = Files.write(dir.resolve("small.bin"), new byte[]{1, 2, 3});
+        Path empty = Files.createFile(dir.resolve("empty.bin"));
+        assertNotEquals(ContentIndexService.sampleHash(small), ContentIndexService.sampleHash(empty));
+        assertEquals("e3b0c44298fc1c149afbf4c8996fb92427ae41e4649b934ca495991b7852b855", ContentIndexService.fullHash(empty));
+    }
+}
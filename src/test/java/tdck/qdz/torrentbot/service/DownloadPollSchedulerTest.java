@@ -0,0 +1,68 @@
+package tdck.qdz.torrentbot.service;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonParser;
+import org.junit.jupiter.api.Test;
+import tdck.qdz.torrentbot.config.PollConfig;
+import tdck.qdz.torrentbot.model.TorrentField;
+import tdck.qdz.torrentbot.model.TorrentSnapshot;
+
+import java.io.IOException;
+import java.util.EnumSet;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DownloadPollSchedulerTest {
+
+    private static final JsonFactory JSON = new JsonFactory();
+
+    private static String torrent(String state, long eta) {
+        return String.format("{\"hash\":\"%s-%d\",\"progress\":0.5,\"state\":\"%s\",\"eta\":%d}", state, eta, state, eta);
+    }
+
+    private static TorrentSnapshot torrents(String... torrents) throws IOException {
+        TorrentSnapshot snapshot = new TorrentSnapshot();
+        try (JsonParser parser = JSON.createParser("[" + String.join(",", torrents) + "]")) {
+            snapshot.read(parser, EnumSet.of(TorrentField.PROGRESS, TorrentField.STATE, TorrentField.ETA));
+        }
+        return snapshot;
+    }
+
+    @Test
+    void testNextDelay() throws IOException {
+        PollConfig config = new PollConfig();
+        DownloadPollScheduler scheduler = new DownloadPollScheduler(config, null, new JobScheduler());
+        try {
+            // 没有跟踪中的种子时停止，只剩已完成的种子时同样停止
+            assertEquals(-1, scheduler.nextDelay(torrents()));
+            assertEquals(-1, scheduler.nextDelay(torrents("{\"hash\":\"done\",\"progress\":1,\"state\":\"uploading\"}")));
+            // 即将完成时使用最小间隔，否则按剩余时间的一半
+            assertEquals(2000, scheduler.nextDelay(torrents(torrent("downloading", 1))));
+            assertEquals(10000, scheduler.nextDelay(torrents(torrent("downloading", 20), torrent("downloading", 600))));
+            assertEquals(60000, scheduler.nextDelay(torrents(torrent("downloading", 3600))));
+        } finally {
+            scheduler.close();
+        }
+    }
+
+    @Test
+    void testIdleBackoff() throws IOException {
+        PollConfig config = new PollConfig();
+        DownloadPollScheduler scheduler = new DownloadPollScheduler(config, null, new JobScheduler());
+        try {
+            TorrentSnapshot stalled = torrents(torrent("stalledDL", 8640000), torrent("pausedDL", 100));
+            // 停滞时从最小间隔开始逐次翻倍，直到最大间隔
+            for (long expected : new long[]{2000, 4000, 8000, 16000, 32000, 60000, 60000}) {
+                assertEquals(expected, scheduler.nextDelay(stalled));
+            }
+            // 恢复下载后按剩余时间重新计算，之后的退避从该间隔开始
+            assertEquals(2000, scheduler.nextDelay(torrents(torrent("downloading", 3))));
+            assertEquals(4000, scheduler.nextDelay(stalled));
+            assertEquals(8000, scheduler.nextDelay(stalled));
+            assertEquals(5000, scheduler.nextDelay(torrents(torrent("downloading", 10), torrent("stalledDL", 8640000))));
+            assertEquals(10000, scheduler.nextDelay(stalled));
+        } finally {
+            scheduler.close();
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package tdck.qdz.torrentbot.service;
+
+import org.junit.jupiter.api.Test;
+import tdck.qdz.torrentbot.model.QbTorrent;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class DownloadWatchServiceTest {
+
+    private static QbTorrent torrent(String hash, String savePath, String name, String contentPath) {
+        QbTorrent torrent = new QbTorrent();
+        torrent.setHash(hash);
+        torrent.setSavePath(savePath);
+        torrent.setName(name);
+        torrent.setContentPath(contentPath);
+        return torrent;
+    }
+
+    @Test
+    void testResolveHashes() {
+        List<QbTorrent> torrents = List.of(
+                torrent("aaa", "/media/av", "Movie", "/media/av/Movie"),
+                torrent("bbb", "/media/av", "single.mkv", "/media/av/single.mkv"),
+                torrent("ccc", "/media/av", "Old", null));
+        List<Path> paths = List.of(
+                Paths.get("/media/av/single.mkv"),
+                Paths.get("/media/av/Movie/disc1/a.mkv"),
+                Paths.get("/media/av/Movie/b.mkv"),
+                Paths.get("/media/av/Old/c.mkv"),
+                // 名称前缀相同但不在内容路径之下
+                Paths.get("/media/av/Movie2/d.mkv"));
+        assertEquals(Set.of("aaa", "bbb", "ccc"), DownloadWatchService.resolveHashes(paths, torrents));
+    }
+
+    @Test
+    void testCompletedPath() {
+        assertEquals(Paths.get("/media/av/a.mkv"), DownloadWatchService.completedPath(Paths.get("/media/av/a.mkv.!qB")));
+        assertEquals(Paths.get("/media/av/a.mkv"), DownloadWatchService.completedPath(Paths.get("/media/av/a.mkv")));
+    }
+}
@@ -0,0 +1,83 @@
+package tdck.qdz.torrentbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class ExecutorMetricsTest {
+
+    @Test
+    void testFailures() throws InterruptedException {
+        ExecutorMetrics metrics = new ExecutorMetrics();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("add-torrent-");
+        executor.setCorePoolSize(1);
+        metrics.register("add-torrent", executor);
+        executor.initialize();
+        try {
+            CountDownLatch done = new CountDownLatch(3);
+            executor.execute(done::countDown);
+            // 直接提交的任务抛出异常
+            executor.execute(() -> {
+                done.countDown();
+                throw new IllegalStateException("failed");
+            });
+            // @Async方法的异常被Spring捕获后由异常处理器记录
+            executor.execute(() -> {
+                metrics.recordFailure(Thread.currentThread().getName());
+                done.countDown();
+            });
+            assertTrue(done.await(5, TimeUnit.SECONDS));
+            executor.shutdown();
+            assertTrue(executor.getThreadPoolExecutor().awaitTermination(5, TimeUnit.SECONDS));
+
+            String stats = metrics.format();
+            assertTrue(stats.contains("提交：3，完成：1，失败：2"), stats);
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    void testRejection() throws InterruptedException {
+        ExecutorMetrics metrics = new ExecutorMetrics();
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setThreadNamePrefix("list-tasks-");
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        metrics.register("list-tasks", executor);
+        executor.initialize();
+        try {
+            CountDownLatch release = new CountDownLatch(1);
+            CountDownLatch started = new CountDownLatch(1);
+            executor.execute(() -> {
+                started.countDown();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            assertTrue(started.await(5, TimeUnit.SECONDS));
+            executor.execute(() -> {
+            });
+            // 队列已满时拒绝，不在提交线程中执行
+            Thread caller = Thread.currentThread();
+            boolean[] ranOnCaller = {false};
+            assertThrows(TaskRejectedException.class, () -> executor.execute(() -> ranOnCaller[0] = Thread.currentThread() == caller));
+            assertFalse(ranOnCaller[0]);
+            release.countDown();
+
+            String stats = metrics.format();
+            assertTrue(stats.contains("拒绝：1"), stats);
+        } finally {
+            executor.shutdown();
+        }
+    }
+}
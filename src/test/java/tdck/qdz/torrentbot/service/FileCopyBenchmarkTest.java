@@ -0,0 +1,67 @@
+package tdck.qdz.torrentbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import tdck.qdz.torrentbot.config.OrganizeConfig;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * 比较各复制方式的吞吐量，默认不执行。
+ * 运行方式：mvn test -Dtest=FileCopyBenchmarkTest -Dbenchmark=true [-Dbenchmark.dir=/media/av] [-Dbenchmark.size=2048]
+ * 其中 benchmark.dir 应位于实际的下载盘上，benchmark.size 为测试文件大小（MB）。
+ * 测试文件应大于内存或在每轮之间清空页缓存（echo 1 > /proc/sys/vm/drop_caches），否则普通方式的读取会命中缓存。
+ */
+@EnabledIfSystemProperty(named = "benchmark", matches = "true")
+public class FileCopyBenchmarkTest {
+
+    @Test
+    void benchmark() throws IOException {
+        Path dir = Files.createTempDirectory(Paths.get(System.getProperty("benchmark.dir", System.getProperty("java.io.tmpdir"))), "copy-bench");
+        long sizeMb = Long.getLong("benchmark.size", 1024);
+        Path source = dir.resolve("source.bin");
+        try {
+            byte[] block = new byte[1024 * 1024];
+            new Random(1).nextBytes(block);
+            try (OutputStream out = Files.newOutputStream(source)) {
+                for (long i = 0; i < sizeMb; i++) {
+                    out.write(block);
+                }
+            }
+
+            run(dir, source, sizeMb, "transferTo", false, false);
+            run(dir, source, sizeMb, "buffered+crc32c", true, false);
+            run(dir, source, sizeMb, "direct", false, true);
+            run(dir, source, sizeMb, "direct+crc32c", true, true);
+        } finally {
+            try (var files = Files.walk(dir)) {
+                files.sorted((a, b) -> b.compareTo(a)).forEach(path -> path.toFile().delete());
+            }
+        }
+    }
+
+    private static void run(Path dir, Path source, long sizeMb, String name, boolean verify, boolean directIo)
+            throws IOException {
+        OrganizeConfig config = new OrganizeConfig();
+        config.setMode(OrganizeConfig.Mode.COPY);
+        config.setVerify(verify);
+        config.setDirectIo(directIo);
+        FileCopyEngine engine = new FileCopyEngine(config, null);
+        Path target = dir.resolve(name + ".bin");
+        try {
+            long start = System.nanoTime();
+            engine.copy(List.of(new FileCopyEngine.CopyRequest(source, target)));
+            long millis = Math.max(1, (System.nanoTime() - start) / 1_000_000);
+            System.out.printf("%-16s %6d MB  %6d ms  %6d MB/s%n", name, sizeMb, millis, sizeMb * 1000 / millis);
+        } finally {
+            engine.close();
+            Files.deleteIfExists(target);
+        }
+    }
+}
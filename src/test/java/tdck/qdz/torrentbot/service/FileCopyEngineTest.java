@@ -0,0 +1,252 @@
+package tdck.qdz.torrentbot.service;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import tdck.qdz.torrentbot.config.OrganizeConfig;
+import tdck.qdz.torrentbot.model.CopyJournalEntry;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileCopyEngineTest {
+
+    @TempDir
+    Path dir;
+
+    private static long crc32c(byte[] data, int offset, int length) {
+        CRC32C crc = new CRC32C();
+        crc.update(data, offset, length);
+        return crc.getValue();
+    }
+
+    @Test
+    void testCopyRanges() throws IOException {
+        OrganizeConfig config = new OrganizeConfig();
+        config.setMode(OrganizeConfig.Mode.COPY);
+        config.setRangeSize(1);
+        config.setVerify(true);
+        FileCopyEngine engine = new FileCopyEngine(config, null);
+        try {
+            byte[] data = new byte[3 * 1024 * 1024 + 12345];
+            new Random(42).nextBytes(data);
+            Path large = Files.write(dir.resolve("large.bin"), data);
+            Path empty = Files.createFile(dir.resolve("empty.bin"));
+            Path target = dir.resolve("target");
+            // 目标文件已存在且更长时应被覆盖
+            Files.createDirectories(target.resolve("a"));
+            Files.write(target.resolve("a/large.bin"), new byte[data.length + 100]);
+
+            FileCopyEngine.CopyResult result = engine.copy(List.of(
+                    new FileCopyEngine.CopyRequest(large, target.resolve("a/large.bin")),
+                    new FileCopyEngine.CopyRequest(empty, target.resolve("b/empty.bin"))));
+
+            assertEquals(data.length, result.bytes());
+            assertArrayEquals(data, Files.readAllBytes(target.resolve("a/large.bin")));
+            assertEquals(0, Files.size(target.resolve("b/empty.bin")));
+            // 文件校验和由各1MB分段的CRC32C合并而成
+            long[] ranges = new long[4];
+            for (int i = 0; i < ranges.length; i++) {
+                ranges[i] = crc32c(data, i * 1024 * 1024, Math.min(1024 * 1024, data.length - i * 1024 * 1024));
+            }
+            assertEquals(FileCopyEngine.combineChecksums(ranges, 1024 * 1024),
+                    result.checksums().get(target.resolve("a/large.bin")));
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void testDirectIo() throws IOException {
+        OrganizeConfig config = new OrganizeConfig();
+        config.setMode(OrganizeConfig.Mode.COPY);
+        config.setRangeSize(1);
+        config.setDirectIo(true);
+        config.setVerify(true);
+        FileCopyEngine engine = new FileCopyEngine(config, null);
+        try {
+            // 长度不是块大小的整数倍，末尾需要按整块写入后截断
+            byte[] data = new byte[2 * 1024 * 1024 + 777];
+            new Random(3).nextBytes(data);
+            Path source = Files.write(dir.resolve("direct.bin"), data);
+            Path target = dir.resolve("target/direct.bin");
+
+            FileCopyEngine.CopyResult result = engine.copy(List.of(new FileCopyEngine.CopyRequest(source, target)));
+
+            assertArrayEquals(data, Files.readAllBytes(target));
+            assertNotNull(result.checksums().get(target));
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void testHardLink() throws IOException {
+        OrganizeConfig config = new OrganizeConfig();
+        config.setMode(OrganizeConfig.Mode.HARDLINK);
+        FileCopyEngine engine = new FileCopyEngine(config, null);
+        try {
+            Path source = Files.write(dir.resolve("video.mkv"), new byte[]{1, 2, 3});
+            Path target = dir.resolve("target/video.mkv");
+            Files.createDirectories(target.getParent());
+            Files.write(target, new byte[]{9});
+
+            engine.copy(List.of(new FileCopyEngine.CopyRequest(source, target)));
+
+            assertTrue(Files.isSameFile(source, target));
+            // 再次整理时目标已是同一文件，不做任何操作
+            engine.copy(List.of(new FileCopyEngine.CopyRequest(source, target)));
+            assertArrayEquals(new byte[]{1, 2, 3}, Files.readAllBytes(target));
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void testCopyOverHardLinkedTarget() throws IOException {
+        OrganizeConfig config = new OrganizeConfig();
+        config.setMode(OrganizeConfig.Mode.COPY);
+        config.setRangeSize(1);
+        FileCopyEngine engine = new FileCopyEngine(config, null);
+        try {
+            byte[] data = new byte[2 * 1024 * 1024 + 99];
+            new Random(5).nextBytes(data);
+            Path source = Files.write(dir.resolve("seeding.mkv"), data);
+            // 之前以硬链接方式整理过，目标就是做种中的源文件
+            Path target = dir.resolve("target/seeding.mkv");
+            Files.createDirectories(target.getParent());
+            Files.createLink(target, source);
+
+            engine.copy(List.of(new FileCopyEngine.CopyRequest(source, target)));
+            assertArrayEquals(data, Files.readAllBytes(source));
+            assertArrayEquals(data, Files.readAllBytes(target));
+
+            // 目标是另一个已整理文件（例如内容去重时）的硬链接，复制时只替换目标，不能改写那个文件
+            byte[] other = new byte[4096];
+            new Random(6).nextBytes(other);
+            Path organized = Files.write(dir.resolve("target/other.mkv"), other);
+            Path linked = dir.resolve("target/linked.mkv");
+            Files.createLink(linked, organized);
+
+            engine.copy(List.of(new FileCopyEngine.CopyRequest(source, linked)));
+            assertArrayEquals(data, Files.readAllBytes(linked));
+            assertArrayEquals(other, Files.readAllBytes(organized));
+            assertFalse(Files.isSameFile(linked, organized));
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void testResumeFromJournal() throws IOException {
+        OrganizeConfig config = new OrganizeConfig();
+        config.setMode(OrganizeConfig.Mode.COPY);
+        config.setRangeSize(1);
+        long rangeSize = 1024 * 1024;
+        byte[] data = new byte[(int) rangeSize + 4096];
+        new Random(7).nextBytes(data);
+        Path source = Files.write(dir.resolve("episode.mkv"), data);
+        Path target = dir.resolve("target/episode.mkv");
+        Files.createDirectories(target.getParent());
+        // 第一个分段已复制，第二个分段尚未写入
+        byte[] partial = new byte[data.length];
+        System.arraycopy(data, 0, partial, 0, (int) rangeSize);
+        Files.write(target, partial);
+
+        CopyJournalEntry entry = new CopyJournalEntry();
+        entry.setId("hash|" + target);
+        entry.setSize(data.length);
+        entry.setSourceModified(Files.getLastModifiedTime(source).toMillis());
+        entry.setRangeSize(rangeSize);
+        entry.getCompletedRanges().add(0L);
+        entry.getRangeChecksums().put("0", crc32c(data, 0, (int) rangeSize));
+        List<Long> copiedRanges = new ArrayList<>();
+        List<String> completedFiles = new ArrayList<>();
+        CopyJournalService journal = new CopyJournalService(null) {
+            @Override
+            public CopyJournalEntry find(String key, Path path) {
+                return entry;
+            }
+
+            @Override
+            public void rangeCompleted(String entryId, long offset, Long checksum) {
+                copiedRanges.add(offset);
+            }
+
+            @Override
+            public void fileCompleted(String entryId, String checksum) {
+                completedFiles.add(entryId);
+            }
+        };
+
+        FileCopyEngine engine = new FileCopyEngine(config, journal);
+        try {
+            engine.copy("hash", List.of(new FileCopyEngine.CopyRequest(source, target)));
+            assertArrayEquals(data, Files.readAllBytes(target));
+            assertEquals(List.of(rangeSize), copiedRanges);
+            assertEquals(List.of(entry.getId()), completedFiles);
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void testAbortOnFailure() throws IOException {
+        OrganizeConfig config = new OrganizeConfig();
+        config.setMode(OrganizeConfig.Mode.COPY);
+        config.setRangeSize(1);
+        config.setCopyThreads(1);
+        byte[] data = new byte[8 * 1024 * 1024];
+        new Random(11).nextBytes(data);
+        Path source = Files.write(dir.resolve("season.mkv"), data);
+        Path target = dir.resolve("target/season.mkv");
+        List<Long> completedRanges = new ArrayList<>();
+        CopyJournalService journal = new CopyJournalService(null) {
+            @Override
+            public CopyJournalEntry find(String key, Path path) {
+                return null;
+            }
+
+            @Override
+            public CopyJournalEntry start(String key, Path source, Path target, long size, long sourceModified, long rangeSize) {
+                CopyJournalEntry entry = new CopyJournalEntry();
+                entry.setId(key + "|" + target);
+                return entry;
+            }
+
+            @Override
+            public void rangeCompleted(String entryId, long offset, Long checksum) {
+                completedRanges.add(offset);
+                throw new IllegalStateException("journal unavailable");
+            }
+        };
+
+        FileCopyEngine engine = new FileCopyEngine(config, journal);
+        try {
+            IOException e = assertThrows(IOException.class,
+                    () -> engine.copy("hash", List.of(new FileCopyEngine.CopyRequest(source, target))));
+            assertInstanceOf(IllegalStateException.class, e.getCause());
+            // 第一个分段失败后其余分段不再复制
+            assertEquals(1, completedRanges.size());
+        } finally {
+            engine.close();
+        }
+    }
+
+    @Test
+    void testMissingSource() {
+        FileCopyEngine engine = new FileCopyEngine(new OrganizeConfig(), null);
+        try {
+            assertThrows(IOException.class, () -> engine.copy(List.of(
+                    new FileCopyEngine.CopyRequest(dir.resolve("missing"), dir.resolve("out")))));
+        } finally {
+            engine.close();
+        }
+    }
+}
@@ -0,0 +1,37 @@
+package tdck.qdz.torrentbot.service;
+
+import org.junit.jupiter.api.Test;
+import tdck.qdz.torrentbot.config.FileSelectionConfig;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class FileSelectionServiceTest {
+
+    private static final long GB = 1024L * 1024 * 1024;
+
+    @Test
+    void testDefaultRules() {
+        FileSelectionService service = new FileSelectionService(new FileSelectionConfig(), null, null, null);
+        assertTrue(service.isWanted("Movie/movie.mkv", 2 * GB));
+        assertFalse(service.isWanted("Movie/movie.nfo", 1024));
+        assertFalse(service.isWanted("Movie/Sample/movie.mkv", 2 * GB));
+        assertFalse(service.isWanted("Movie/movie-sample.mkv", 2 * GB));
+        assertTrue(service.isWanted("Samplers/movie.mkv", 2 * GB));
+        assertTrue(service.isWanted("Movie\\disc1\\movie.mkv", 2 * GB));
+    }
+
+    @Test
+    void testExtensions() {
+        FileSelectionConfig config = new FileSelectionConfig();
+        config.setMinSize(0);
+        config.setExtensions(List.of("mkv", ".MP4"));
+        config.setExcludes(List.of());
+        FileSelectionService service = new FileSelectionService(config, null, null, null);
+        assertTrue(service.isWanted("a/b.MKV", 1));
+        assertTrue(service.isWanted("a/b.mp4", 1));
+        assertFalse(service.isWanted("a/b.jpg", 1));
+        assertFalse(service.isWanted("a.mkv/readme", 1));
+    }
+}
@@ -0,0 +1,179 @@
+package tdck.qdz.torrentbot.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.URLDecoder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+/**
+ * 本地的Alist替身服务器，用于测试。
+ * 实现 /api/auth/login、/api/fs/get、/api/fs/list 和 /api/fs/put 四个接口，上传的文件保存到指定的本地目录。
+ */
+public class LocalAlistServer implements AutoCloseable {
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final HttpServer server;
+    private final Path root;
+    private final String username;
+    private final String password;
+    private final Set<String> tokens = ConcurrentHashMap.newKeySet();
+    final AtomicInteger logins = new AtomicInteger();
+    final AtomicInteger uploads = new AtomicInteger();
+    /**
+     * 为true时 /api/fs/get 模拟存储异常。
+     */
+    volatile boolean storageDown;
+
+    public LocalAlistServer(Path root, String username, String password) throws IOException {
+        this.root = root;
+        this.username = username;
+        this.password = password;
+        this.server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/api/auth/login", this::login);
+        server.createContext("/api/fs/get", this::get);
+        server.createContext("/api/fs/list", this::list);
+        server.createContext("/api/fs/put", this::put);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.start();
+    }
+
+    /**
+     * 服务器地址。
+     */
+    public String host() {
+        return "http://127.0.0.1:" + server.getAddress().getPort();
+    }
+
+    /**
+     * 使所有已发放的令牌失效，模拟令牌过期。
+     */
+    public void expireTokens() {
+        tokens.clear();
+    }
+
+    private void login(HttpExchange exchange) throws IOException {
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        if (!username.equals(body.path("username").asText()) || !password.equals(body.path("password").asText())) {
+            respond(exchange, 400, "password is incorrect", null);
+            return;
+        }
+        logins.incrementAndGet();
+        String token = UUID.randomUUID().toString();
+        tokens.add(token);
+        respond(exchange, 200, "success", Map.of("token", token));
+    }
+
+    private void get(HttpExchange exchange) throws IOException {
+        if (!authorized(exchange)) {
+            return;
+        }
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        Path file = resolve(body.path("path").asText());
+        if (storageDown) {
+            respond(exchange, 500, "failed get storage: storage is not available", null);
+            return;
+        }
+        if (!Files.exists(file)) {
+            // 错误信息随Alist版本和语言变化，客户端不能依赖
+            respond(exchange, 500, "对象不存在", null);
+            return;
+        }
+        respond(exchange, 200, "success", describe(file));
+    }
+
+    private void list(HttpExchange exchange) throws IOException {
+        if (!authorized(exchange)) {
+            return;
+        }
+        JsonNode body = objectMapper.readTree(exchange.getRequestBody());
+        Path dir = resolve(body.path("path").asText());
+        if (storageDown) {
+            respond(exchange, 500, "failed get storage: storage is not available", null);
+            return;
+        }
+        if (!Files.isDirectory(dir)) {
+            respond(exchange, 500, "对象不存在", null);
+            return;
+        }
+        List<Map<String, Object>> content = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            for (Path file : files.toList()) {
+                content.add(describe(file));
+            }
+        }
+        respond(exchange, 200, "success", Map.of("content", content, "total", content.size()));
+    }
+
+    private static Map<String, Object> describe(Path file) throws IOException {
+        Map<String, Object> data = new LinkedHashMap<>();
+        data.put("name", file.getFileName().toString());
+        data.put("size", Files.isDirectory(file) ? 0 : Files.size(file));
+        data.put("is_dir", Files.isDirectory(file));
+        return data;
+    }
+
+    private void put(HttpExchange exchange) throws IOException {
+        if (!authorized(exchange)) {
+            exchange.getRequestBody().transferTo(OutputStream.nullOutputStream());
+            return;
+        }
+        String path = URLDecoder.decode(exchange.getRequestHeaders().getFirst("File-Path"), StandardCharsets.UTF_8);
+        Path file = resolve(path);
+        Files.createDirectories(file.getParent());
+        try (InputStream in = exchange.getRequestBody()) {
+            Files.copy(in, file, StandardCopyOption.REPLACE_EXISTING);
+        }
+        uploads.incrementAndGet();
+        respond(exchange, 200, "success", null);
+    }
+
+    private boolean authorized(HttpExchange exchange) throws IOException {
+        String token = exchange.getRequestHeaders().getFirst("Authorization");
+        if (token == null || !tokens.contains(token)) {
+            respond(exchange, 401, "token is expired", null);
+            return false;
+        }
+        return true;
+    }
+
+    private Path resolve(String path) {
+        return root.resolve(path.replaceFirst("^/+", ""));
+    }
+
+    private void respond(HttpExchange exchange, int code, String message, Object data) throws IOException {
+        Map<String, Object> body = new LinkedHashMap<>();
+        body.put("code", code);
+        body.put("message", message);
+        body.put("data", data);
+        byte[] bytes = objectMapper.writeValueAsBytes(body);
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    @Override
+    public void close() {
+        server.stop(0);
+    }
+}
@@ -0,0 +1,66 @@
+package tdck.qdz.torrentbot.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.Test;
+import tdck.qdz.torrentbot.config.QbConfig;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class QbBatchCoalescerTest {
+
+    /**
+     * 记录批量请求而不发送的qBittorrent服务。
+     */
+    private static final class RecordingQbService extends QbService {
+        private final List<Set<String>> paused = new ArrayList<>();
+
+        private RecordingQbService(QbConfig config) {
+            super(config, new ObjectMapper(), event -> {
+            });
+        }
+
+        @Override
+        public synchronized boolean pauseTorrents(Collection<String> hashes) {
+            paused.add(Set.copyOf(hashes));
+            return true;
+        }
+    }
+
+    @Test
+    void testCoalesce() {
+        QbConfig config = new QbConfig();
+        config.setCoalesce(true);
+        config.setCoalesceWindow(200);
+        RecordingQbService qbService = new RecordingQbService(config);
+        QbBatchCoalescer coalescer = new QbBatchCoalescer(config, qbService);
+        try {
+            List<CompletableFuture<Boolean>> results = List.of(
+                    coalescer.pauseTorrent("a"), coalescer.pauseTorrent("b"), coalescer.pauseTorrent("c"));
+            results.forEach(result -> assertTrue(result.join()));
+            assertEquals(List.of(Set.of("a", "b", "c")), qbService.paused);
+        } finally {
+            coalescer.close();
+        }
+    }
+
+    @Test
+    void testDisabledByDefault() {
+        QbConfig config = new QbConfig();
+        RecordingQbService qbService = new RecordingQbService(config);
+        QbBatchCoalescer coalescer = new QbBatchCoalescer(config, qbService);
+        try {
+            List<CompletableFuture<Boolean>> results = List.of(coalescer.pauseTorrent("a"), coalescer.pauseTorrent("b"));
+            results.forEach(result -> assertTrue(result.join()));
+            // 默认不合并，每个操作单独发送
+            assertEquals(2, qbService.paused.size());
+        } finally {
+            coalescer.close();
+        }
+    }
+}
@@ -0,0 +1,48 @@
+package tdck.qdz.torrentbot.util;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+public class InfoHashTest {
+
+    private static final String V1_INFO = "d6:lengthi12345e4:name8:test.bin12:piece lengthi16384e6:pieces20:"
+            + "\u0001".repeat(20) + "e";
+
+    private static final String V2_INFO = "d9:file treed8:test.bind0:d6:lengthi5e11:pieces root32:"
+            + "\u0002".repeat(32) + "eee12:meta versioni2e4:name8:test.bin12:piece lengthi16384ee";
+
+    private static byte[] torrent(String info) {
+        return ("d8:announce13:http://t/anno4:info" + info + "e").getBytes(StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    void testTorrentV1() throws IOException {
+        assertEquals("2d0271489bf8bb30be17cdf96b1c16e54d0a6b55", InfoHash.fromTorrent(torrent(V1_INFO)));
+    }
+
+    @Test
+    void testTorrentV2() throws IOException {
+        assertEquals("c29a7539a22949c8755cc2ac686af2e9a672c21a", InfoHash.fromTorrent(torrent(V2_INFO)));
+    }
+
+    @Test
+    void testInvalidTorrent() {
+        assertThrows(IOException.class, () -> InfoHash.fromTorrent("d8:announce1:xe".getBytes(StandardCharsets.US_ASCII)));
+        assertThrows(IOException.class, () -> InfoHash.fromTorrent("d4:infod".getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    void testMagnet() {
+        String hash = "2d0271489bf8bb30be17cdf96b1c16e54d0a6b55";
+        assertEquals(hash, InfoHash.fromMagnet("magnet:?xt=urn:btih:2D0271489BF8BB30BE17CDF96B1C16E54D0A6B55&dn=test"));
+        assertEquals(hash, InfoHash.fromMagnet("magnet:?dn=test&xt=urn:btih:FUBHCSE37C5TBPQXZX4WWHAW4VGQU22V"));
+        assertEquals("c29a7539a22949c8755cc2ac686af2e9a672c21a", InfoHash.fromMagnet(
+                "magnet:?xt=urn:btmh:1220c29a7539a22949c8755cc2ac686af2e9a672c21a5abc4ad9d7988b1f23cccf16"));
+        assertNull(InfoHash.fromMagnet("magnet:?xt=urn:btih:xyz"));
+        assertNull(InfoHash.fromMagnet("http://example.com"));
+    }
+}